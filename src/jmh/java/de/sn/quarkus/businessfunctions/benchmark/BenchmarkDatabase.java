@@ -0,0 +1,113 @@
+package de.sn.quarkus.businessfunctions.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+
+import de.sn.quarkus.businessfunctions.model.Item;
+import de.sn.quarkus.businessfunctions.model.Project;
+
+/**
+ * Embedded H2 database with the entity model of the application, bootstrapped without Quarkus.
+ */
+final class BenchmarkDatabase {
+
+	private BenchmarkDatabase() {
+	}
+
+	static SessionFactory create(String name) {
+		return build("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+	}
+
+	//Database file in target, e.g. for data larger than the heap; rows of large results are read lazily
+	static SessionFactory createOnDisk(String name) {
+		return build("jdbc:h2:./target/benchmark/" + name + ";LAZY_QUERY_EXECUTION=1");
+	}
+
+	private static SessionFactory build(String url) {
+		return new Configuration()
+				.addAnnotatedClass(Project.class)
+				.addAnnotatedClass(Item.class)
+				.setProperty(AvailableSettings.DRIVER, "org.h2.Driver")
+				.setProperty(AvailableSettings.URL, url)
+				.setProperty(AvailableSettings.USER, "sa")
+				.setProperty(AvailableSettings.PASS, "")
+				.setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+				.setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, "false")
+				.setProperty(AvailableSettings.JPA_VALIDATION_MODE, "none")
+				.setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, "50")
+				.buildSessionFactory();
+	}
+
+	//Persist a project with an item tree: width main items, each item with width sub items down to depth levels
+	static Long fill(SessionFactory sessionFactory, String name, int width, int depth) {
+		try (Session session = sessionFactory.openSession()) {
+			Transaction transaction = session.beginTransaction();
+			Project project = new Project();
+			project.name = name;
+			session.persist(project);
+			List<Item> parents = new ArrayList<>();
+			parents.add(null);
+			int count = 0;
+			for (int level = 0; level < depth; level++) {
+				List<Item> children = new ArrayList<>();
+				for (Item parent : parents) {
+					for (int i = 0; i < width; i++) {
+						Item item = new Item();
+						item.name = "item " + level + "-" + i;
+						item.imageURL = "/item.jpg";
+						item.level = level;
+						item.project = project;
+						item.item = parent;
+						item.path = (parent != null) ? parent.childPath() : "/";
+						session.persist(item);
+						children.add(item);
+						if (++count % 50 == 0) {
+							session.flush();
+						}
+					}
+				}
+				parents = children;
+			}
+			transaction.commit();
+			return project.id;
+		}
+	}
+
+	//Same item tree as plain objects, e.g. for serialization
+	static Project graph(String name, int width, int depth) {
+		Project project = new Project();
+		project.id = 1L;
+		project.name = name;
+		project.items = new ArrayList<>();
+		List<Item> parents = new ArrayList<>();
+		parents.add(null);
+		long id = 2;
+		for (int level = 0; level < depth; level++) {
+			List<Item> children = new ArrayList<>();
+			for (Item parent : parents) {
+				for (int i = 0; i < width; i++) {
+					Item item = new Item();
+					item.id = id++;
+					item.name = "item " + level + "-" + i;
+					item.imageURL = "/item.jpg";
+					item.level = level;
+					item.version = 0L;
+					item.project = project;
+					item.item = parent;
+					item.items = new ArrayList<>();
+					project.items.add(item);
+					if (parent != null) parent.items.add(item);
+					children.add(item);
+				}
+			}
+			parents = children;
+		}
+		return project;
+	}
+}
@@ -0,0 +1,63 @@
+package de.sn.quarkus.businessfunctions.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.ws.rs.core.Response;
+
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.sn.quarkus.businessfunctions.exception.BusinessExceptionMapper;
+import de.sn.quarkus.businessfunctions.exception.ConstraintViolationExceptionMapper;
+import de.sn.quarkus.businessfunctions.exception.RecordNotFoundException;
+import de.sn.quarkus.businessfunctions.model.Item;
+
+/**
+ * Mapping of validation and business exceptions to error responses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExceptionMapperBenchmark {
+
+	private final ConstraintViolationExceptionMapper constraintViolationMapper = new ConstraintViolationExceptionMapper();
+	private final BusinessExceptionMapper businessMapper = new BusinessExceptionMapper();
+	private ConstraintViolationException constraintViolationException;
+	private RecordNotFoundException recordNotFoundException;
+
+	@Setup
+	public void setup() {
+		Validator validator = Validation.byDefaultProvider().configure()
+				.messageInterpolator(new ParameterMessageInterpolator())
+				.buildValidatorFactory().getValidator();
+		Item item = new Item();
+		item.level = 7;
+		constraintViolationException = new ConstraintViolationException(validator.validate(item));
+		recordNotFoundException = new RecordNotFoundException("Project with id 1000 does not exist");
+	}
+
+	@Benchmark
+	public Response mapConstraintViolation() {
+		return constraintViolationMapper.toResponse(constraintViolationException);
+	}
+
+	@Benchmark
+	public Response mapBusinessException() {
+		return businessMapper.toResponse(recordNotFoundException);
+	}
+}
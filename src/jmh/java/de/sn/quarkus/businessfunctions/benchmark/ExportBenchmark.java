@@ -0,0 +1,99 @@
+package de.sn.quarkus.businessfunctions.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.sn.quarkus.businessfunctions.export.ItemExporter;
+import de.sn.quarkus.businessfunctions.model.Project;
+
+/**
+ * NDJSON export of a project with 1.000.000 items (GET /items/project/{projectid}/export) in a JVM
+ * with 128 MB heap: the items alone as list of ItemNode would not fit into it, so the benchmark only
+ * completes if the export streams. The database is a file, the items are not held in the heap either.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx128m", "-XX:+HeapDumpOnOutOfMemoryError"})
+public class ExportBenchmark {
+
+	@Param({"1000000"})
+	int size;
+
+	private SessionFactory sessionFactory;
+	private Long projectId;
+
+	@Setup
+	public void setup() {
+		sessionFactory = BenchmarkDatabase.createOnDisk("export");
+		try (Session session = sessionFactory.openSession()) {
+			Transaction transaction = session.beginTransaction();
+			Project project = new Project();
+			project.name = "Export project";
+			session.persist(project);
+			session.flush();
+			//Set based insert, the items are never entities in the heap
+			session.createNativeQuery("INSERT INTO item (id, name, imageurl, level, project_id, path, version)"
+					+ " SELECT x, 'item ' || x, '/item.jpg', 0, :projectid, '/', 0 FROM SYSTEM_RANGE(1, :size)")
+					.setParameter("projectid", project.id)
+					.setParameter("size", size)
+					.executeUpdate();
+			transaction.commit();
+			projectId = project.id;
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		sessionFactory.close();
+	}
+
+	@Benchmark
+	public long export() throws IOException {
+		CountingOutputStream output = new CountingOutputStream();
+		try (Session session = sessionFactory.openSession()) {
+			Transaction transaction = session.beginTransaction();
+			long count = ItemExporter.export(session, projectId, 1000, output);
+			transaction.commit();
+			if (count != size) {
+				throw new IllegalStateException("Exported " + count + " of " + size + " items");
+			}
+		}
+		return output.bytes;
+	}
+
+	//Client that reads the response without keeping it
+	static class CountingOutputStream extends OutputStream {
+
+		long bytes;
+
+		@Override
+		public void write(int b) {
+			bytes++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			bytes += len;
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package de.sn.quarkus.businessfunctions.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.sn.quarkus.businessfunctions.id.BlockSequenceGenerator;
+import de.sn.quarkus.businessfunctions.model.Item;
+import de.sn.quarkus.businessfunctions.model.Project;
+
+/**
+ * Insert throughput depending on the id block size of the item sequence (bf.id.block-size.item_seq):
+ * block size 1 calls the sequence for every insert. The embedded database has no network round trip,
+ * against PostgreSQL the difference between the block sizes is larger.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdBlockBenchmark {
+
+	//Items inserted per transaction
+	private static final int ITEMS = 100;
+
+	@Param({"1", "10", "50", "500"})
+	int blockSize;
+
+	private SessionFactory sessionFactory;
+	private Long projectId;
+
+	@Setup
+	public void setup() {
+		//Read by the generator when the session factory is built, each parameter runs in its own fork
+		System.setProperty(BlockSequenceGenerator.BLOCK_SIZE + "item_seq", String.valueOf(blockSize));
+		sessionFactory = BenchmarkDatabase.create("idblock" + blockSize);
+		projectId = BenchmarkDatabase.fill(sessionFactory, "Id project", 1, 1);
+	}
+
+	@TearDown
+	public void tearDown() {
+		sessionFactory.close();
+	}
+
+	@Benchmark
+	public Long insertItems() {
+		try (Session session = sessionFactory.openSession()) {
+			Transaction transaction = session.beginTransaction();
+			Project project = session.getReference(Project.class, projectId);
+			Item item = null;
+			for (int i = 0; i < ITEMS; i++) {
+				item = new Item();
+				item.name = "item " + i;
+				item.imageURL = "/item.jpg";
+				item.level = 0;
+				item.path = "/";
+				item.project = project;
+				session.persist(item);
+			}
+			transaction.commit();
+			return item.id;
+		}
+	}
+}
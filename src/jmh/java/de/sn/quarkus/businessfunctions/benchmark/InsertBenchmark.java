@@ -0,0 +1,92 @@
+package de.sn.quarkus.businessfunctions.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.sn.quarkus.businessfunctions.model.Item;
+import de.sn.quarkus.businessfunctions.model.Project;
+
+/**
+ * Concurrent inserts of main items into one project of growing size, mapping only: foreign key write
+ * with a project reference compared with adding the item to the loaded Project.items collection.
+ * The complete write path of POST /items/project/{projectid} (project version, counters, search index)
+ * with concurrent clients is measured by BFTest.testRESTConcurrentInsertsIntoGrowingProject.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class InsertBenchmark {
+
+	//Number of items in the project before the measurement
+	@Param({"100", "10000"})
+	int size;
+
+	private SessionFactory sessionFactory;
+	private Long projectId;
+
+	@Setup
+	public void setup() {
+		sessionFactory = BenchmarkDatabase.create("insert" + size);
+		projectId = BenchmarkDatabase.fill(sessionFactory, "Insert project", size, 1);
+	}
+
+	@TearDown
+	public void tearDown() {
+		sessionFactory.close();
+	}
+
+	@Benchmark
+	public Long insertByReference() {
+		try (Session session = sessionFactory.openSession()) {
+			Transaction transaction = session.beginTransaction();
+			Item item = newItem();
+			item.project = session.getReference(Project.class, projectId);
+			session.persist(item);
+			transaction.commit();
+			return item.id;
+		}
+	}
+
+	@Benchmark
+	public Long insertIntoCollection() {
+		try (Session session = sessionFactory.openSession()) {
+			Transaction transaction = session.beginTransaction();
+			Project project = session.get(Project.class, projectId);
+			Item item = newItem();
+			item.project = project;
+			session.persist(item);
+			project.items.add(item);
+			transaction.commit();
+			return item.id;
+		}
+	}
+
+	private static Item newItem() {
+		Item item = new Item();
+		item.name = "inserted";
+		item.imageURL = "/item.jpg";
+		item.level = 0;
+		item.path = "/";
+		return item;
+	}
+}
@@ -0,0 +1,121 @@
+package de.sn.quarkus.businessfunctions.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.sn.quarkus.businessfunctions.binary.BinaryFormats;
+import de.sn.quarkus.businessfunctions.model.Item;
+
+/**
+ * Item list as JSON (JSON-B), gzip compressed JSON, CBOR and Smile: serialize and deserialize time.
+ * Payload sizes of all formats are printed once per parameter set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadBenchmark {
+
+	//Number of main items, each with 5 lower items on 2 levels
+	@Param({"20", "200"})
+	int width;
+
+	private Jsonb jsonb;
+	private ObjectMapper cbor;
+	private ObjectMapper smile;
+	private List<Item> items;
+	private String json;
+	private byte[] gzipJson;
+	private byte[] cborBytes;
+	private byte[] smileBytes;
+
+	@Setup
+	public void setup() throws IOException {
+		jsonb = JsonbBuilder.create();
+		cbor = BinaryFormats.cbor();
+		smile = BinaryFormats.smile();
+		items = new ArrayList<>(BenchmarkDatabase.graph("Payload", width, 2).items.subList(0, width));
+		json = jsonb.toJson(items);
+		gzipJson = gzip(json);
+		cborBytes = cbor.writeValueAsBytes(items);
+		smileBytes = smile.writeValueAsBytes(items);
+		System.out.println("Payload bytes (" + width + " main items): json=" + json.getBytes(StandardCharsets.UTF_8).length
+				+ " json+gzip=" + gzipJson.length + " cbor=" + cborBytes.length + " smile=" + smileBytes.length);
+	}
+
+	@Benchmark
+	public String serializeJson() {
+		return jsonb.toJson(items);
+	}
+
+	@Benchmark
+	public byte[] serializeJsonGzip() throws IOException {
+		return gzip(jsonb.toJson(items));
+	}
+
+	@Benchmark
+	public byte[] serializeCbor() throws IOException {
+		return cbor.writeValueAsBytes(items);
+	}
+
+	@Benchmark
+	public byte[] serializeSmile() throws IOException {
+		return smile.writeValueAsBytes(items);
+	}
+
+	@Benchmark
+	public Item[] deserializeJson() {
+		return jsonb.fromJson(json, Item[].class);
+	}
+
+	@Benchmark
+	public Item[] deserializeJsonGzip() throws IOException {
+		try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(gzipJson))) {
+			return jsonb.fromJson(input, Item[].class);
+		}
+	}
+
+	@Benchmark
+	public Item[] deserializeCbor() throws IOException {
+		return cbor.readValue(cborBytes, Item[].class);
+	}
+
+	@Benchmark
+	public Item[] deserializeSmile() throws IOException {
+		return smile.readValue(smileBytes, Item[].class);
+	}
+
+	private static byte[] gzip(String value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (GZIPOutputStream output = new GZIPOutputStream(bytes)) {
+			output.write(value.getBytes(StandardCharsets.UTF_8));
+		}
+		return bytes.toByteArray();
+	}
+}
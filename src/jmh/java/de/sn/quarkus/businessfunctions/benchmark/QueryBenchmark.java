@@ -0,0 +1,91 @@
+package de.sn.quarkus.businessfunctions.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.sn.quarkus.businessfunctions.model.Item;
+import de.sn.quarkus.businessfunctions.model.Project;
+
+/**
+ * Queries of the model classes (same HQL as generated by Panache) with the default page size
+ * of the REST resources, each in a new session like a request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryBenchmark {
+
+	private static final int PAGE_SIZE = 10;
+
+	//Number of items per level (3 levels)
+	@Param({"5", "20"})
+	int width;
+
+	private SessionFactory sessionFactory;
+	private Long projectId;
+
+	@Setup
+	public void setup() {
+		sessionFactory = BenchmarkDatabase.create("query" + width);
+		projectId = BenchmarkDatabase.fill(sessionFactory, "Benchmark project", width, 3);
+		for (int i = 0; i < 100; i++) {
+			BenchmarkDatabase.fill(sessionFactory, "Other project " + i, 1, 1);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		sessionFactory.close();
+	}
+
+	//Item.findByProjectId
+	@Benchmark
+	public List<Item> findByProjectId() {
+		try (Session session = sessionFactory.openSession()) {
+			return session.createQuery("FROM Item WHERE project.id = ?1", Item.class)
+					.setParameter(1, projectId)
+					.setMaxResults(PAGE_SIZE)
+					.list();
+		}
+	}
+
+	//Item.findByLevelAndProjectId
+	@Benchmark
+	public List<Item> findByLevelAndProjectId() {
+		try (Session session = sessionFactory.openSession()) {
+			return session.createQuery("FROM Item WHERE level = :level and project.id = :projectid", Item.class)
+					.setParameter("level", 1)
+					.setParameter("projectid", projectId)
+					.setMaxResults(PAGE_SIZE)
+					.list();
+		}
+	}
+
+	//Project.findAllByNameLike
+	@Benchmark
+	public List<Project> findAllByNameLike() {
+		try (Session session = sessionFactory.openSession()) {
+			return session.createQuery("FROM Project WHERE name LIKE concat('%', :name, '%')", Project.class)
+					.setParameter("name", "project 4")
+					.list();
+		}
+	}
+}
@@ -0,0 +1,94 @@
+package de.sn.quarkus.businessfunctions.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.sn.quarkus.businessfunctions.model.Item;
+import de.sn.quarkus.businessfunctions.model.ItemNode;
+
+/**
+ * One page of GET /items/project/{projectid}: managed entities in a read-write transaction (snapshots,
+ * dirty checking and flush at commit), read-only entities without flush (@ReadOnly) and a DTO projection.
+ * Run with the GC profiler for the allocation per page: -Djmh.args="ReadOnlyBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadOnlyBenchmark {
+
+	private static final String PAGE_QUERY = "FROM Item WHERE project.id = :projectid ORDER BY level, id";
+
+	@Param({"100", "1000", "5000"})
+	int pageSize;
+
+	private SessionFactory sessionFactory;
+	private Long projectId;
+
+	@Setup
+	public void setup() {
+		sessionFactory = BenchmarkDatabase.create("readonly" + pageSize);
+		projectId = BenchmarkDatabase.fill(sessionFactory, "Read project", pageSize, 1);
+	}
+
+	@TearDown
+	public void tearDown() {
+		sessionFactory.close();
+	}
+
+	@Benchmark
+	public List<Item> managedEntities() {
+		try (Session session = sessionFactory.openSession()) {
+			Transaction transaction = session.beginTransaction();
+			List<Item> items = page(session);
+			transaction.commit();
+			return items;
+		}
+	}
+
+	@Benchmark
+	public List<Item> readOnlyEntities() {
+		try (Session session = sessionFactory.openSession()) {
+			session.setDefaultReadOnly(true);
+			session.setHibernateFlushMode(FlushMode.MANUAL);
+			return page(session);
+		}
+	}
+
+	@Benchmark
+	public List<ItemNode> projection() {
+		try (Session session = sessionFactory.openSession()) {
+			return session.createQuery("select new de.sn.quarkus.businessfunctions.model.ItemNode(i.id, i.name, i.imageURL, i.level, i.item.id)"
+					+ " from Item i where i.project.id = :projectid order by i.level, i.id", ItemNode.class)
+					.setParameter("projectid", projectId)
+					.setMaxResults(pageSize)
+					.list();
+		}
+	}
+
+	private List<Item> page(Session session) {
+		return session.createQuery(PAGE_QUERY, Item.class)
+				.setParameter("projectid", projectId)
+				.setMaxResults(pageSize)
+				.list();
+	}
+}
@@ -0,0 +1,82 @@
+package de.sn.quarkus.businessfunctions.benchmark;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.sn.quarkus.businessfunctions.search.NameSearch;
+import de.sn.quarkus.businessfunctions.search.SearchResult;
+import de.sn.quarkus.businessfunctions.search.TrigramIndex;
+
+/**
+ * Name search with the trigram index compared to a scan of all names (as LIKE '%q%' does).
+ * The index time should stay almost flat while the scan grows with the number of items.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+	private static final String LETTERS = "abcdefghijklmnopqrstuvwxyz";
+
+	//Number of indexed items, spread over 100 projects
+	@Param({"10000", "100000", "1000000"})
+	int items;
+
+	private TrigramIndex index;
+	private String[] names;
+	private String query;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		index = new TrigramIndex();
+		names = new String[items];
+		for (int i = 0; i < items; i++) {
+			StringBuilder name = new StringBuilder();
+			for (int c = 0; c < 12; c++) {
+				name.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+			}
+			names[i] = name.toString();
+			index.put(NameSearch.Type.ITEM, i, (long) (i % 100), names[i]);
+		}
+		//Part of one name in the middle of the table, selective like a typical user query
+		query = names[items / 2].substring(3, 9).toUpperCase(Locale.ROOT);
+	}
+
+	@Benchmark
+	public SearchResult indexSearch() {
+		return index.search(NameSearch.Type.ITEM, null, query, 0, 10);
+	}
+
+	@Benchmark
+	public SearchResult indexSearchInProject() {
+		return index.search(NameSearch.Type.ITEM, (long) ((items / 2) % 100), query, 0, 10);
+	}
+
+	//Baseline: case insensitive substring test on every name
+	@Benchmark
+	public int scan() {
+		String normalized = query.toLowerCase(Locale.ROOT);
+		int hits = 0;
+		for (String name : names) {
+			if (name.toLowerCase(Locale.ROOT).contains(normalized)) hits++;
+		}
+		return hits;
+	}
+}
@@ -0,0 +1,70 @@
+package de.sn.quarkus.businessfunctions.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.json.bind.Jsonb;
+import javax.json.bind.JsonbBuilder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.sn.quarkus.businessfunctions.model.Item;
+import de.sn.quarkus.businessfunctions.model.Project;
+
+/**
+ * JSON-B serialization of project and item graphs as returned by the REST resources.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+	//Number of items per level and number of levels of the item hierarchy
+	@Param({"5", "20"})
+	int width;
+
+	@Param({"1", "3"})
+	int depth;
+
+	private Jsonb jsonb;
+	private Project project;
+	private List<Item> mainItems;
+
+	@Setup
+	public void setup() {
+		jsonb = JsonbBuilder.create();
+		project = BenchmarkDatabase.graph("Benchmark", width, depth);
+		mainItems = project.items.subList(0, width);
+	}
+
+	//GET /projects/{id}
+	@Benchmark
+	public String serializeProject() {
+		return jsonb.toJson(project);
+	}
+
+	//GET /items/project/{projectid}/level/0
+	@Benchmark
+	public String serializeItemList() {
+		return jsonb.toJson(mainItems);
+	}
+
+	//GET /items/{id}
+	@Benchmark
+	public String serializeItem() {
+		return jsonb.toJson(mainItems.get(0));
+	}
+}
@@ -0,0 +1,106 @@
+package de.sn.quarkus.businessfunctions.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.sn.quarkus.businessfunctions.model.Item;
+import de.sn.quarkus.businessfunctions.model.ItemNode;
+
+/**
+ * Item hierarchy of a project: one recursive query (GET /items/project/{projectid}/tree)
+ * compared with navigation through the Item.items collections.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TreeBenchmark {
+
+	private static final String TREE_QUERY = 
+			"WITH RECURSIVE tree (id, name, imageurl, level, item_id, depth) AS ("
+			+ " SELECT i.id, i.name, i.imageurl, i.level, i.item_id, 0 FROM item i"
+			+ " WHERE i.project_id = :projectid AND i.item_id IS NULL"
+			+ " UNION ALL"
+			+ " SELECT c.id, c.name, c.imageurl, c.level, c.item_id, t.depth + 1 FROM item c"
+			+ " JOIN tree t ON c.item_id = t.id WHERE t.depth < :depth)"
+			+ " SELECT id, name, imageurl, level, item_id FROM tree";
+
+	//Number of items per level (4 levels): 10 -> 11.110 items, 12 -> 22.620 items
+	@Param({"10", "12"})
+	int width;
+
+	private SessionFactory sessionFactory;
+	private Long projectId;
+
+	@Setup
+	public void setup() {
+		sessionFactory = BenchmarkDatabase.create("tree" + width);
+		projectId = BenchmarkDatabase.fill(sessionFactory, "Benchmark project", width, 4);
+	}
+
+	@TearDown
+	public void tearDown() {
+		sessionFactory.close();
+	}
+
+	@Benchmark
+	@SuppressWarnings("unchecked")
+	public List<ItemNode> recursiveQuery() {
+		try (Session session = sessionFactory.openSession()) {
+			List<Object[]> rows = session.createNativeQuery(TREE_QUERY)
+					.setParameter("projectid", projectId)
+					.setParameter("depth", Integer.MAX_VALUE)
+					.list();
+			List<ItemNode> nodes = new ArrayList<>(rows.size());
+			for (Object[] row : rows) {
+				nodes.add(new ItemNode(
+						((Number) row[0]).longValue(),
+						(String) row[1],
+						(String) row[2],
+						((Number) row[3]).intValue(),
+						(row[4] != null) ? ((Number) row[4]).longValue() : null));
+			}
+			return ItemNode.buildTree(nodes);
+		}
+	}
+
+	@Benchmark
+	public int navigation() {
+		try (Session session = sessionFactory.openSession()) {
+			List<Item> mainItems = session.createQuery("FROM Item WHERE project.id = :projectid AND item IS NULL", Item.class)
+					.setParameter("projectid", projectId)
+					.list();
+			int count = 0;
+			for (Item item : mainItems) {
+				count += walk(item);
+			}
+			return count;
+		}
+	}
+
+	private static int walk(Item item) {
+		int count = 1;
+		for (Item subItem : item.items) {
+			count += walk(subItem);
+		}
+		return count;
+	}
+}
@@ -0,0 +1,31 @@
+package de.sn.quarkus.businessfunctions.admission;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import javax.enterprise.util.Nonbinding;
+import javax.interceptor.InterceptorBinding;
+
+/**
+ * Admission control: calls are limited per endpoint class (limits bf.admission.<class>.*),
+ * excess calls are rejected with 503 and Retry-After. A method annotation overrides the class annotation.
+ */
+@Inherited
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface Admission {
+
+	//Lists, trees and graphs with many rows, bulk writes
+	String HEAVY = "heavy";
+	//Single records, counts, search
+	String READ = "read";
+	//Single writes
+	String WRITE = "write";
+
+	@Nonbinding
+	String value() default READ;
+}
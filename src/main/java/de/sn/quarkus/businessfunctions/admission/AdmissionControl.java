@@ -0,0 +1,92 @@
+package de.sn.quarkus.businessfunctions.admission;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Gauge;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.annotation.RegistryType;
+
+import de.sn.quarkus.businessfunctions.exception.OverloadException;
+
+/**
+ * Limits of all endpoint classes, created on first use from bf.admission.<class>.limit, min-limit,
+ * max-limit and queue. Limit, calls in flight and queue depth are exported as gauges, rejections as counter.
+ */
+@ApplicationScoped
+public class AdmissionControl {
+
+	@Inject
+	Config config;
+
+	@ConfigProperty(name = "bf.admission.enabled", defaultValue = "true")
+	boolean enabled;
+
+	@ConfigProperty(name = "bf.admission.adaptive", defaultValue = "true")
+	boolean adaptive;
+
+	@ConfigProperty(name = "bf.admission.latency-tolerance", defaultValue = "2.0")
+	double tolerance;
+
+	@ConfigProperty(name = "bf.admission.queue-timeout", defaultValue = "100")
+	long queueTimeoutMillis;
+
+	@ConfigProperty(name = "bf.admission.retry-after", defaultValue = "1")
+	int retryAfterSeconds;
+
+	@Inject
+	@RegistryType(type = MetricRegistry.Type.APPLICATION)
+	MetricRegistry registry;
+
+	private final Map<String, AdmissionLimit> limits = new ConcurrentHashMap<>();
+
+	public Object admit(String endpointClass, Callable<Object> call) throws Exception {
+		if (!enabled) {
+			return call.call();
+		}
+		AdmissionLimit limit = limits.computeIfAbsent(endpointClass, this::create);
+		if (!limit.acquire()) {
+			registry.counter("admission.rejected", new Tag("class", endpointClass)).inc();
+			throw new OverloadException("Too many concurrent requests (" + endpointClass + "), retry later", retryAfterSeconds);
+		}
+		long start = System.nanoTime();
+		try {
+			return call.call();
+		} finally {
+			limit.release(System.nanoTime() - start);
+		}
+	}
+
+	private AdmissionLimit create(String endpointClass) {
+		String prefix = "bf.admission." + endpointClass + ".";
+		int initial = config.getOptionalValue(prefix + "limit", Integer.class).orElse(16);
+		AdmissionLimit limit = new AdmissionLimit(
+				initial,
+				config.getOptionalValue(prefix + "min-limit", Integer.class).orElse(1),
+				config.getOptionalValue(prefix + "max-limit", Integer.class).orElse(initial),
+				config.getOptionalValue(prefix + "queue", Integer.class).orElse(initial),
+				queueTimeoutMillis, adaptive, tolerance);
+		Tag tag = new Tag("class", endpointClass);
+		registry.register(gauge("admission.limit", "current concurrency limit"), (Gauge<Integer>) limit::limit, tag);
+		registry.register(gauge("admission.inflight", "calls in progress"), (Gauge<Integer>) limit::inFlight, tag);
+		registry.register(gauge("admission.queue", "calls waiting for a slot"), (Gauge<Integer>) limit::waiting, tag);
+		return limit;
+	}
+
+	private static Metadata gauge(String name, String description) {
+		return Metadata.builder()
+				.withName(name)
+				.withDescription(description)
+				.withType(MetricType.GAUGE)
+				.build();
+	}
+}
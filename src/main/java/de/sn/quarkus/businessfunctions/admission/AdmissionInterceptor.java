@@ -0,0 +1,25 @@
+package de.sn.quarkus.businessfunctions.admission;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+@Admission
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_BEFORE + 100) //Waiting calls hold no transaction (@Transactional: + 200)
+public class AdmissionInterceptor {
+
+	@Inject
+	AdmissionControl control;
+
+	@AroundInvoke
+	Object admit(InvocationContext context) throws Exception {
+		Admission admission = context.getMethod().getAnnotation(Admission.class);
+		if (admission == null) {
+			admission = context.getMethod().getDeclaringClass().getAnnotation(Admission.class);
+		}
+		return control.admit((admission != null) ? admission.value() : Admission.READ, context::proceed);
+	}
+}
@@ -0,0 +1,122 @@
+package de.sn.quarkus.businessfunctions.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit of one endpoint class with a bounded queue of waiting calls.
+ * Adaptive limit (AIMD on latency): while the short-term average latency stays below tolerance times the
+ * long-term average, a fully used limit grows by one per limit-many calls. Above it the limit shrinks
+ * by 10% at most once per limit-many calls. The limit stays between min and max.
+ */
+public class AdmissionLimit {
+
+	private static final double SHORT_WEIGHT = 0.1;
+	private static final double LONG_WEIGHT = 0.001;
+
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition available = lock.newCondition();
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final int queueSize;
+	private final long queueTimeoutNanos;
+	private final boolean adaptive;
+	private final double tolerance;
+
+	private volatile double limit;
+	private volatile int inFlight;
+	private volatile int waiting;
+	private double shortLatency;
+	private double longLatency;
+	private int callsSinceDecrease;
+
+	AdmissionLimit(int initialLimit, int minLimit, int maxLimit, int queueSize, long queueTimeoutMillis, boolean adaptive, double tolerance) {
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.queueSize = queueSize;
+		this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+		this.adaptive = adaptive;
+		this.tolerance = tolerance;
+		this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+	}
+
+	//Free slot or a slot within the queue timeout, false if the queue is full or the timeout has elapsed
+	boolean acquire() {
+		lock.lock();
+		try {
+			if (inFlight < (int) limit) {
+				inFlight++;
+				return true;
+			}
+			if (waiting >= queueSize) {
+				return false;
+			}
+			waiting++;
+			try {
+				long remaining = queueTimeoutNanos;
+				while (inFlight >= (int) limit) {
+					if (remaining <= 0) {
+						return false;
+					}
+					remaining = available.awaitNanos(remaining);
+				}
+				inFlight++;
+				return true;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return false;
+			} finally {
+				waiting--;
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	void release(long latencyNanos) {
+		lock.lock();
+		try {
+			boolean limitUsed = inFlight >= (int) limit;
+			inFlight--;
+			if (adaptive) {
+				adapt(latencyNanos, limitUsed);
+			}
+			available.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void adapt(long latencyNanos, boolean limitUsed) {
+		if (longLatency == 0) {
+			shortLatency = latencyNanos;
+			longLatency = latencyNanos;
+			return;
+		}
+		shortLatency += SHORT_WEIGHT * (latencyNanos - shortLatency);
+		longLatency += LONG_WEIGHT * (latencyNanos - longLatency);
+		callsSinceDecrease++;
+		if (shortLatency > tolerance * longLatency) {
+			if (callsSinceDecrease >= limit) {
+				limit = Math.max(minLimit, limit * 0.9);
+				callsSinceDecrease = 0;
+			}
+		} else if (limitUsed) {
+			limit = Math.min(maxLimit, limit + 1.0 / limit);
+		}
+	}
+
+	public int limit() {
+		return (int) limit;
+	}
+
+	public int inFlight() {
+		return inFlight;
+	}
+
+	public int waiting() {
+		return waiting;
+	}
+}
@@ -0,0 +1,79 @@
+package de.sn.quarkus.businessfunctions.binary;
+
+import java.util.List;
+
+import javax.json.bind.annotation.JsonbTransient;
+import javax.ws.rs.core.MediaType;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+
+/**
+ * Binary representations of the REST resources. CBOR and Smile carry the same data model as
+ * the JSON representations (OpenAPI schemas Project, Item, ErrorsResponse, ...), fields excluded
+ * from JSON by @JsonbTransient are excluded from the binary formats too.
+ */
+public final class BinaryFormats {
+
+	public static final String APPLICATION_CBOR = "application/cbor";
+	public static final String APPLICATION_SMILE = "application/x-jackson-smile";
+
+	//Media types of the resources in the order of @Produces (first one for */*)
+	private static final MediaType[] PRODUCED = {
+			MediaType.APPLICATION_JSON_TYPE,
+			MediaType.valueOf(APPLICATION_CBOR),
+			MediaType.valueOf(APPLICATION_SMILE)};
+
+	private BinaryFormats() {
+	}
+
+	//Media type of the response, negotiated like RESTEasy does: acceptable types are sorted by quality
+	public static MediaType negotiate(List<MediaType> acceptable) {
+		for (MediaType accepted : acceptable) {
+			for (MediaType produced : PRODUCED) {
+				if (accepted.isCompatible(produced)) return produced;
+			}
+		}
+		return PRODUCED[0];
+	}
+
+	public static ObjectMapper cbor() {
+		return mapper(new CBORFactory());
+	}
+
+	public static ObjectMapper smile() {
+		return mapper(new SmileFactory());
+	}
+
+	//Object mapper with the JSON-B view of the model classes
+	public static ObjectMapper mapper(JsonFactory factory) {
+		//Entity streams belong to the container
+		factory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+		factory.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+		ObjectMapper mapper = new ObjectMapper(factory);
+		mapper.setAnnotationIntrospector(new JacksonAnnotationIntrospector() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public boolean hasIgnoreMarker(AnnotatedMember member) {
+				//Panache methods like isPersistent() are no properties of the entities
+				return member.hasAnnotation(JsonbTransient.class)
+						|| member.getDeclaringClass() == PanacheEntityBase.class
+						|| super.hasIgnoreMarker(member);
+			}
+		});
+		mapper.disable(SerializationFeature.FAIL_ON_EMPTY_BEANS);
+		mapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+		return mapper;
+	}
+}
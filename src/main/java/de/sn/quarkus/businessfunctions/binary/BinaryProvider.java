@@ -0,0 +1,70 @@
+package de.sn.quarkus.businessfunctions.binary;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reads and writes request and response entities as CBOR or Smile, negotiated by the Accept and
+ * Content-Type headers. JSON stays the default representation.
+ */
+@Provider
+@Produces({BinaryFormats.APPLICATION_CBOR, BinaryFormats.APPLICATION_SMILE})
+@Consumes({BinaryFormats.APPLICATION_CBOR, BinaryFormats.APPLICATION_SMILE})
+public class BinaryProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+	private static final MediaType CBOR = MediaType.valueOf(BinaryFormats.APPLICATION_CBOR);
+	private static final MediaType SMILE = MediaType.valueOf(BinaryFormats.APPLICATION_SMILE);
+
+	private final ObjectMapper cbor = BinaryFormats.cbor();
+	private final ObjectMapper smile = BinaryFormats.smile();
+
+	@Override
+	public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+		return mapper(mediaType) != null;
+	}
+
+	@Override
+	public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+			MultivaluedMap<String, String> httpHeaders, InputStream entityStream) throws IOException {
+		ObjectMapper mapper = mapper(mediaType);
+		return mapper.readValue(entityStream, mapper.getTypeFactory().constructType(genericType));
+	}
+
+	@Override
+	public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+		return mapper(mediaType) != null && !StreamingOutput.class.isAssignableFrom(type);
+	}
+
+	@Override
+	public void writeTo(Object entity, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+			MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException {
+		mapper(mediaType).writeValue(entityStream, entity);
+	}
+
+	private ObjectMapper mapper(MediaType mediaType) {
+		if (mediaType == null) return null;
+		if (same(CBOR, mediaType)) return cbor;
+		if (same(SMILE, mediaType)) return smile;
+		return null;
+	}
+
+	//Exact type and subtype, wildcards are resolved to JSON by the other providers
+	private static boolean same(MediaType expected, MediaType mediaType) {
+		return expected.getType().equalsIgnoreCase(mediaType.getType())
+				&& expected.getSubtype().equalsIgnoreCase(mediaType.getSubtype());
+	}
+}
@@ -0,0 +1,158 @@
+package de.sn.quarkus.businessfunctions.binary;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.Priority;
+import javax.ws.rs.Priorities;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Compresses response entities with gzip or deflate, if the client accepts one of them
+ * (Accept-Encoding, q=0 excludes a coding). The higher quality wins, gzip on equal quality.
+ */
+@Provider
+@Priority(Priorities.ENTITY_CODER)
+public class ContentEncodingInterceptor implements WriterInterceptor {
+
+	@Context
+	HttpHeaders requestHeaders;
+
+	@ConfigProperty(name = "bf.compression.enabled", defaultValue = "true")
+	boolean enabled;
+
+	@Override
+	public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+		String accepted = requestHeaders.getHeaderString(HttpHeaders.ACCEPT_ENCODING);
+		if (!enabled || accepted == null || context.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING)) {
+			context.proceed();
+			return;
+		}
+		String encoding = encoding(accepted);
+		if (encoding == null) {
+			context.proceed();
+			return;
+		}
+		context.getHeaders().putSingle(HttpHeaders.CONTENT_ENCODING, encoding);
+		context.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		weakenTag(context.getHeaders());
+		context.getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+		OutputStream output = context.getOutputStream();
+		EncodingStream encoded = new EncodingStream(output, "gzip".equals(encoding));
+		context.setOutputStream(encoded);
+		try {
+			context.proceed();
+		} finally {
+			context.setOutputStream(output);
+		}
+		encoded.finish();
+	}
+
+	//Negotiated content coding, null for identity
+	static String encoding(String accepted) {
+		float gzip = 0, deflate = 0, any = 0;
+		boolean gzipListed = false, deflateListed = false;
+		for (String entry : accepted.toLowerCase(Locale.ROOT).split(",")) {
+			String[] parts = entry.split(";");
+			String coding = parts[0].trim();
+			float quality = quality(parts);
+			if ("gzip".equals(coding) || "x-gzip".equals(coding)) {
+				gzip = quality;
+				gzipListed = true;
+			} else if ("deflate".equals(coding)) {
+				deflate = quality;
+				deflateListed = true;
+			} else if ("*".equals(coding)) {
+				any = quality;
+			}
+		}
+		//Codings not listed are accepted with the quality of *
+		if (!gzipListed) gzip = any;
+		if (!deflateListed) deflate = any;
+		if (gzip <= 0 && deflate <= 0) return null;
+		return (gzip >= deflate) ? "gzip" : "deflate";
+	}
+
+	private static float quality(String[] parameters) {
+		for (int i = 1; i < parameters.length; i++) {
+			String parameter = parameters[i].trim();
+			if (parameter.startsWith("q=")) {
+				try {
+					return Float.parseFloat(parameter.substring(2).trim());
+				} catch (NumberFormatException e) {
+					return 0;
+				}
+			}
+		}
+		return 1;
+	}
+
+	//Compressed bytes differ from the identity response: same content, but no longer byte-equal (weak tag)
+	private static void weakenTag(MultivaluedMap<String, Object> headers) {
+		Object tag = headers.getFirst(HttpHeaders.ETAG);
+		if (tag instanceof EntityTag && !((EntityTag) tag).isWeak()) {
+			headers.putSingle(HttpHeaders.ETAG, new EntityTag(((EntityTag) tag).getValue(), true));
+		} else if (tag instanceof String && ((String) tag).startsWith("\"")) {
+			headers.putSingle(HttpHeaders.ETAG, "W/" + tag);
+		}
+	}
+
+	/**
+	 * Encoder is created with the first byte, so inner interceptors can still set headers.
+	 * Flushes are passed through (e.g. streamed exports).
+	 */
+	private static final class EncodingStream extends OutputStream {
+		private final OutputStream target;
+		private final boolean gzip;
+		private DeflaterOutputStream encoder;
+
+		EncodingStream(OutputStream target, boolean gzip) {
+			this.target = target;
+			this.gzip = gzip;
+		}
+
+		private DeflaterOutputStream encoder() throws IOException {
+			if (encoder == null) {
+				encoder = gzip ? new GZIPOutputStream(target, true) : new DeflaterOutputStream(target, true);
+			}
+			return encoder;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			encoder().write(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			encoder().write(b, off, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			if (encoder != null) encoder.flush();
+		}
+
+		//Completes the compressed stream, the target stream stays open
+		void finish() throws IOException {
+			encoder().finish();
+		}
+
+		@Override
+		public void close() throws IOException {
+			finish();
+		}
+	}
+}
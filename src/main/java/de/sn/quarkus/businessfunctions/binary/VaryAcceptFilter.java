@@ -0,0 +1,35 @@
+package de.sn.quarkus.businessfunctions.binary;
+
+import java.lang.reflect.Method;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Responses of resource methods producing several media types (JSON, CBOR, Smile) depend on Accept:
+ * shared caches must not serve one format to a client asking for another (incl. 304 responses).
+ */
+@Provider
+public class VaryAcceptFilter implements ContainerResponseFilter {
+
+	@Context
+	ResourceInfo resourceInfo;
+
+	@Override
+	public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+		Method method = resourceInfo.getResourceMethod();
+		if (method == null) return;
+		Produces produces = method.isAnnotationPresent(Produces.class)
+				? method.getAnnotation(Produces.class)
+				: resourceInfo.getResourceClass().getAnnotation(Produces.class);
+		if (produces != null && produces.value().length > 1) {
+			response.getHeaders().add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package de.sn.quarkus.businessfunctions.cache;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManagerFactory;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.annotation.RegistryType;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+
+import de.sn.quarkus.businessfunctions.model.Item;
+import de.sn.quarkus.businessfunctions.model.Project;
+
+/**
+ * Invalidation of second level cache entries, which are not maintained by Hibernate itself,
+ * e.g. item collections changed by foreign key writes only or rows changed by native SQL.
+ * Entries are evicted immediately and again after the transaction has completed, so that a
+ * concurrent reader cannot put back a stale state read before the commit.
+ */
+@ApplicationScoped
+public class CacheEvictor {
+
+	public static final String PROJECT_ITEMS = Project.class.getName() + ".items";
+	public static final String ITEM_ITEMS = Item.class.getName() + ".items";
+
+	@Inject
+	EntityManagerFactory emf;
+
+	@Inject
+	TransactionSynchronizationRegistry transactionRegistry;
+
+	@Inject
+	@RegistryType(type = MetricRegistry.Type.APPLICATION)
+	MetricRegistry registry;
+
+	//Items list of a project
+	public void evictProjectItems(Long projectid) {
+		evict(PROJECT_ITEMS, () -> cache().evictCollectionData(PROJECT_ITEMS, projectid));
+	}
+
+	//Lower items list of an item
+	public void evictSubItems(Long itemid) {
+		evict(ITEM_ITEMS, () -> cache().evictCollectionData(ITEM_ITEMS, itemid));
+	}
+
+	public void evictProject(Long projectid) {
+		evict(Project.class.getName(), () -> cache().evictEntityData(Project.class, projectid));
+	}
+
+	public void evictItem(Long itemid) {
+		evict(Item.class.getName(), () -> cache().evictEntityData(Item.class, itemid));
+	}
+
+	//All items and item lists, e.g. after set based statements
+	public void evictAllItems() {
+		evict(Item.class.getName(), () -> {
+			cache().evictEntityData(Item.class);
+			cache().evictCollectionData(ITEM_ITEMS);
+			cache().evictCollectionData(PROJECT_ITEMS);
+		});
+	}
+
+	//Cached query results, e.g. after a native update of attributes used in query conditions
+	public void evictQueryResults() {
+		evict("query", () -> cache().evictDefaultQueryRegion());
+	}
+
+	private void evict(String region, Runnable eviction) {
+		eviction.run();
+		if (transactionRegistry.getTransactionStatus() == Status.STATUS_ACTIVE) {
+			transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+				@Override
+				public void beforeCompletion() {
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					eviction.run();
+				}
+			});
+		}
+		registry.counter("cache.invalidations", new Tag("region", region)).inc();
+	}
+
+	private Cache cache() {
+		return emf.unwrap(SessionFactory.class).getCache();
+	}
+}
@@ -0,0 +1,125 @@
+package de.sn.quarkus.businessfunctions.cache;
+
+import java.util.List;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+
+import org.hibernate.query.NativeQuery;
+
+import de.sn.quarkus.businessfunctions.binary.BinaryFormats;
+import de.sn.quarkus.businessfunctions.counter.RowCounters;
+
+/**
+ * Version of a project including all of its items. It is incremented by every write on the
+ * project or one of its items and is the base of the entity tags of all project and item
+ * representations, so conditional requests are answered without loading any entity.
+ * Item writes don't update the project row: they count their changes in the striped rows of
+ * item_change (stripe of the writing thread, see RowCounters), the version is the version of
+ * the project row plus the sum of these changes. Concurrent item writers of one project don't
+ * wait for each other's project row lock.
+ * Updates check the version of the changed record itself (Project.version, Item.version), not
+ * this version: changes of other items of the project do not conflict with them.
+ */
+@ApplicationScoped
+public class ProjectVersions {
+
+	//Version of project row and item changes, p is the project
+	private static final String VERSION = "CAST(p.version + COALESCE((SELECT SUM(c.count) FROM item_change c WHERE c.project_id = p.id), 0) AS bigint)";
+
+	//Separate query space: the version statements neither flush nor evict cached entities
+	private static final String QUERY_SPACE = "project_version";
+
+	@Inject
+	EntityManager em;
+
+	@Inject
+	RowCounters rowCounters;
+
+	//Current version, null if project does not exist
+	public Long current(Long projectid) {
+		List<?> versions = query("SELECT " + VERSION + " FROM project p WHERE p.id = :id")
+				.setParameter("id", projectid)
+				.getResultList();
+		return versions.isEmpty() ? null : ((Number) versions.get(0)).longValue();
+	}
+
+	//Project id and current project version of an item, null if item does not exist
+	public Object[] currentForItem(Long itemid) {
+		List<?> versions = query("SELECT p.id, " + VERSION + " FROM item i JOIN project p ON p.id = i.project_id WHERE i.id = :id")
+				.setParameter("id", itemid)
+				.getResultList();
+		return versions.isEmpty() ? null : longs((Object[]) versions.get(0));
+	}
+
+	//Increment version within the current transaction, after a change of items of the project
+	public void increment(Long projectid) {
+		//Change row of the writer's stripe, the project row is not locked
+		query("INSERT INTO item_change (project_id, stripe, count) VALUES (:id, :stripe, 1)"
+				+ " ON CONFLICT (project_id, stripe) DO UPDATE SET count = item_change.count + 1")
+				.setParameter("id", projectid)
+				.setParameter("stripe", rowCounters.stripe())
+				.executeUpdate();
+	}
+
+	//Change rows of the project are removed together with the project
+	public void removed(Long projectid) {
+		query("DELETE FROM item_change WHERE project_id = :id")
+				.setParameter("id", projectid)
+				.executeUpdate();
+	}
+
+	//If-Match of an update: strong comparison only, weak tags (e.g. of compressed responses) never match
+	public static boolean matches(String ifMatch, EntityTag current) {
+		for (String value : ifMatch.split(",")) {
+			String tag = value.trim();
+			if (tag.equals("*") || tag.equals("\"" + current.getValue() + "\"")) return true;
+		}
+		return false;
+	}
+
+	private Query query(String sql) {
+		return em.createNativeQuery(sql)
+				.unwrap(NativeQuery.class)
+				.addSynchronizedQuerySpace(QUERY_SPACE);
+	}
+
+	//Native results as Long, independent of the numeric types of the driver
+	private static Object[] longs(Object[] row) {
+		Object[] values = new Object[row.length];
+		for (int i = 0; i < row.length; i++) {
+			values[i] = (row[i] != null) ? ((Number) row[i]).longValue() : null;
+		}
+		return values;
+	}
+
+	//Entity tag of the negotiated representation: JSON keeps the tag, CBOR and Smile get their own
+	public static EntityTag negotiated(EntityTag tag, HttpHeaders headers) {
+		if (tag == null) return null;
+		MediaType mediaType = BinaryFormats.negotiate(headers.getAcceptableMediaTypes());
+		if (MediaType.APPLICATION_JSON_TYPE.equals(mediaType)) return tag;
+		return new EntityTag(tag.getValue() + '-' + mediaType.getSubtype(), tag.isWeak());
+	}
+
+	//Conditional GET: the strong tag of an identity response or the weak tag of a compressed one (same content) matches
+	public static Response.ResponseBuilder notModified(Request request, EntityTag tag) {
+		Response.ResponseBuilder builder = request.evaluatePreconditions(tag);
+		return (builder != null) ? builder : request.evaluatePreconditions(new EntityTag(tag.getValue(), true));
+	}
+
+	//Strong entity tag of a representation, variant distinguishes e.g. pages of a list
+	public static EntityTag tag(Long projectid, Long version, Object... variant) {
+		StringBuilder value = new StringBuilder().append(projectid).append('-').append(version);
+		for (Object part : variant) {
+			value.append('-').append(part);
+		}
+		return new EntityTag(value.toString());
+	}
+}
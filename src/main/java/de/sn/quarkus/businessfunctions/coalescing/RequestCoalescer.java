@@ -0,0 +1,162 @@
+package de.sn.quarkus.businessfunctions.coalescing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.annotation.RegistryType;
+
+import de.sn.quarkus.businessfunctions.binary.BinaryFormats;
+
+/**
+ * Single flight of identical reads: concurrent calls with the same representation (entity tag of the
+ * project version incl. all parameters) and media type share one load. The first call loads and
+ * serializes the response once, the others wait for it and return the same bytes.
+ * Nothing is kept after the flight has landed, later calls load again (no cache, no stale data:
+ * a write changes the project version and thereby the key).
+ * Calls per endpoint are counted in coalescing.requests with result leader or joined.
+ */
+@ApplicationScoped
+public class RequestCoalescer {
+
+	@ConfigProperty(name = "bf.coalescing.enabled", defaultValue = "true")
+	boolean enabled;
+
+	//Max. wait for the leader, afterwards the call loads on its own
+	@ConfigProperty(name = "bf.coalescing.timeout", defaultValue = "5000")
+	long timeoutMillis;
+
+	@Inject
+	@RegistryType(type = MetricRegistry.Type.APPLICATION)
+	MetricRegistry registry;
+
+	private final ConcurrentHashMap<String, CompletableFuture<SharedResponse>> flights = new ConcurrentHashMap<>();
+
+	public Response load(String endpoint, EntityTag tag, HttpHeaders headers, Providers providers, Supplier<Response> loader) {
+		if (!enabled || tag == null) {
+			return loader.get();
+		}
+		MediaType mediaType = BinaryFormats.negotiate(headers.getAcceptableMediaTypes());
+		String key = endpoint + ' ' + tag.getValue() + ' ' + mediaType;
+		CompletableFuture<SharedResponse> flight = new CompletableFuture<>();
+		CompletableFuture<SharedResponse> running = flights.putIfAbsent(key, flight);
+		if (running != null) {
+			count(endpoint, "joined");
+			return await(running, loader);
+		}
+		count(endpoint, "leader");
+		try {
+			SharedResponse shared = SharedResponse.of(loader.get(), mediaType, providers);
+			flight.complete(shared);
+			return shared.response();
+		} catch (RuntimeException | Error e) {
+			flight.completeExceptionally(e);
+			throw e;
+		} finally {
+			//Completed before removed: calls joining in between get the result
+			flights.remove(key, flight);
+		}
+	}
+
+	private Response await(CompletableFuture<SharedResponse> running, Supplier<Response> loader) {
+		try {
+			return running.get(timeoutMillis, TimeUnit.MILLISECONDS).response();
+		} catch (ExecutionException e) {
+			//Same result as an own load, e.g. invalid cursor
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error) throw (Error) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		} catch (TimeoutException e) {
+			return loader.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return loader.get();
+		}
+	}
+
+	private void count(String endpoint, String result) {
+		registry.counter("coalescing.requests", new Tag("endpoint", endpoint), new Tag("result", result)).inc();
+	}
+
+	/**
+	 * Status, headers and entity of the leader's response, a successful entity serialized in the negotiated media type.
+	 * Serialized bytes are written as they are (StreamingOutput): as byte[] entity they would be encoded again by the
+	 * CBOR/Smile provider.
+	 */
+	static class SharedResponse {
+		private final int status;
+		private final MultivaluedMap<String, Object> headers;
+		private final Object entity;
+		private final MediaType mediaType;
+
+		private SharedResponse(int status, MultivaluedMap<String, Object> headers, Object entity, MediaType mediaType) {
+			this.status = status;
+			this.headers = headers;
+			this.entity = entity;
+			this.mediaType = mediaType;
+		}
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		static SharedResponse of(Response response, MediaType mediaType, Providers providers) {
+			MultivaluedMap<String, Object> headers = new MultivaluedHashMap<>();
+			response.getHeaders().forEach((name, values) -> {
+				if (!HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) headers.put(name, values);
+			});
+			Object entity = response.getEntity();
+			if (entity == null || response.getStatus() != Response.Status.OK.getStatusCode()) {
+				return new SharedResponse(response.getStatus(), headers, entity, response.getMediaType());
+			}
+			Class<?> type = entity.getClass();
+			MessageBodyWriter writer = providers.getMessageBodyWriter(type, type, new Annotation[0], mediaType);
+			if (writer == null) {
+				return new SharedResponse(response.getStatus(), headers, entity, response.getMediaType());
+			}
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try {
+				writer.writeTo(entity, type, type, new Annotation[0], mediaType, new MultivaluedHashMap<String, Object>(), bytes);
+			} catch (IOException e) {
+				throw new IllegalStateException("Serialization of shared response failed", e);
+			}
+			return new SharedResponse(response.getStatus(), headers, bytes.toByteArray(), mediaType);
+		}
+
+		Response response() {
+			Object body = entity;
+			if (entity instanceof byte[]) {
+				byte[] bytes = (byte[]) entity;
+				body = (StreamingOutput) output -> output.write(bytes);
+			}
+			Response.ResponseBuilder builder = Response.status(status).entity(body);
+			if (mediaType != null) builder.type(mediaType);
+			for (Map.Entry<String, List<Object>> header : headers.entrySet()) {
+				for (Object value : header.getValue()) {
+					builder.header(header.getKey(), value);
+				}
+			}
+			return builder.build();
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package de.sn.quarkus.businessfunctions.counter;
+
+import java.util.Map;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.query.NativeQuery;
+
+/**
+ * Number of items per project and level and number of projects, maintained incrementally by the
+ * write paths within their transaction (tables item_count and entity_count). Totals of paged
+ * lists are read from these rows by primary key, never by counting the items.
+ * Each counter is striped over bf.count.stripes rows, a writer updates the stripe of its thread
+ * and the reads sum the stripes, so concurrent writers don't queue behind one counter row lock.
+ */
+@ApplicationScoped
+public class RowCounters {
+
+	//Separate query space, counter statements neither flush nor evict cached entities
+	private static final String QUERY_SPACE = "row_count";
+
+	@Inject
+	EntityManager em;
+
+	//Estimated project count from the table statistics, no counter row is updated by project writes
+	@ConfigProperty(name = "bf.count.projects.estimated", defaultValue = "false")
+	boolean projectsEstimated;
+
+	@ConfigProperty(name = "bf.count.stripes", defaultValue = "16")
+	int stripes;
+
+	public void itemAdded(Long projectid, int level) {
+		add(projectid, level, 1);
+	}
+
+	public void itemRemoved(Long projectid, int level) {
+		add(projectid, level, -1);
+	}
+
+	//Items added per level, e.g. by a bulk import
+	public void itemsAdded(Long projectid, Map<Integer, Long> countByLevel) {
+		countByLevel.forEach((level, count) -> add(projectid, level, count));
+	}
+
+	//Items removed per level, e.g. by a sub tree deletion
+	public void itemsRemoved(Long projectid, Map<Integer, Long> countByLevel) {
+		countByLevel.forEach((level, count) -> add(projectid, level, -count));
+	}
+
+	public void add(Long projectid, int level, long delta) {
+		em.createNativeQuery("INSERT INTO item_count (project_id, level, stripe, count) VALUES (:projectid, :level, :stripe, :delta)"
+				+ " ON CONFLICT (project_id, level, stripe) DO UPDATE SET count = item_count.count + :delta")
+				.setParameter("projectid", projectid)
+				.setParameter("level", level)
+				.setParameter("stripe", stripe())
+				.setParameter("delta", delta)
+				.unwrap(NativeQuery.class)
+				.addSynchronizedQuerySpace(QUERY_SPACE)
+				.executeUpdate();
+	}
+
+	public long countForProject(Long projectid) {
+		return count(em.createNativeQuery("SELECT COALESCE(SUM(count), 0) FROM item_count WHERE project_id = :projectid")
+				.setParameter("projectid", projectid));
+	}
+
+	public long countForProjectAndLevel(Long projectid, int level) {
+		return count(em.createNativeQuery("SELECT COALESCE(SUM(count), 0) FROM item_count WHERE project_id = :projectid AND level = :level")
+				.setParameter("projectid", projectid)
+				.setParameter("level", level));
+	}
+
+	public void projectAdded() {
+		if (!projectsEstimated) addProjects(1);
+	}
+
+	//Counter rows of the project are removed together with the project
+	public void projectRemoved(Long projectid) {
+		em.createNativeQuery("DELETE FROM item_count WHERE project_id = :projectid")
+				.setParameter("projectid", projectid)
+				.unwrap(NativeQuery.class)
+				.addSynchronizedQuerySpace(QUERY_SPACE)
+				.executeUpdate();
+		if (!projectsEstimated) addProjects(-1);
+	}
+
+	public long countProjects() {
+		if (projectsEstimated) {
+			//Planner statistics, -1 before the first analyze of the table
+			return Math.max(0, count(em.createNativeQuery("SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = CAST('public.project' AS regclass)")));
+		}
+		return count(em.createNativeQuery("SELECT COALESCE(SUM(count), 0) FROM entity_count WHERE name = 'project'"));
+	}
+
+	//Number of pages of the given size, 0 for empty pages
+	public static long pageCount(long total, int pageSize) {
+		return (pageSize > 0) ? (total + pageSize - 1) / pageSize : 0;
+	}
+
+	private void addProjects(long delta) {
+		em.createNativeQuery("INSERT INTO entity_count (name, stripe, count) VALUES ('project', :stripe, :delta)"
+				+ " ON CONFLICT (name, stripe) DO UPDATE SET count = entity_count.count + :delta")
+				.setParameter("stripe", stripe())
+				.setParameter("delta", delta)
+				.unwrap(NativeQuery.class)
+				.addSynchronizedQuerySpace(QUERY_SPACE)
+				.executeUpdate();
+	}
+
+	//Stripe of the writing thread: all counter rows of one transaction are in the same stripe (also the project version changes)
+	public int stripe() {
+		return (int) Math.floorMod(Thread.currentThread().getId(), (long) Math.max(stripes, 1));
+	}
+
+	private static long count(Query query) {
+		query.unwrap(NativeQuery.class).addSynchronizedQuerySpace(QUERY_SPACE);
+		Object value = query.getSingleResult();
+		return (value != null) ? ((Number) value).longValue() : 0;
+	}
+}
@@ -0,0 +1,142 @@
+package de.sn.quarkus.businessfunctions.datasource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.Callable;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.annotation.RegistryType;
+import org.jboss.logging.Logger;
+
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+
+/**
+ * Routing of JDBC connections between primary and read replica. Read methods (@ReadOnly) get connections
+ * of the replica, everything else of the primary. After a write, a client reads from the primary for
+ * bf.replica.sticky-seconds (read-your-writes). All reads go to the primary while the replica is not
+ * reachable or lags behind more than bf.replica.max-lag milliseconds.
+ */
+@ApplicationScoped
+public class ReplicaRouting {
+
+	private static final Logger LOG = Logger.getLogger(ReplicaRouting.class);
+
+	static final String ROUTING = "datasource.routing";
+
+	//Lag of the replay behind the primary in milliseconds, 0 on a primary or a replica without pending WAL
+	private static final String LAG_QUERY = "SELECT CASE WHEN NOT pg_is_in_recovery()"
+			+ " OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0"
+			+ " ELSE EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000 END";
+
+	private static final ThreadLocal<Boolean> READ = new ThreadLocal<>();
+	private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+	@Inject
+	@DataSource("primary")
+	AgroalDataSource primary;
+
+	@Inject
+	@DataSource("replica")
+	AgroalDataSource replica;
+
+	@ConfigProperty(name = "bf.replica.enabled", defaultValue = "true")
+	boolean enabled;
+
+	@ConfigProperty(name = "bf.replica.max-lag", defaultValue = "1000")
+	long maxLagMillis;
+
+	@ConfigProperty(name = "bf.health.query-timeout", defaultValue = "2")
+	int queryTimeout;
+
+	@Inject
+	@RegistryType(type = MetricRegistry.Type.APPLICATION)
+	MetricRegistry registry;
+
+	private volatile boolean healthy;
+
+	void onStart(@Observes StartupEvent event) {
+		probe();
+	}
+
+	@Scheduled(every = "{bf.replica.interval}", identity = "replica-probe")
+	void probe() {
+		if (!enabled) return;
+		boolean up = false;
+		try (Connection connection = replica.getConnection();
+				Statement statement = connection.createStatement()) {
+			statement.setQueryTimeout(queryTimeout);
+			try (ResultSet result = statement.executeQuery(LAG_QUERY)) {
+				result.next();
+				double lag = result.getDouble(1);
+				up = lag <= maxLagMillis;
+				if (!up) LOG.warn("Replica lags behind " + (long) lag + " ms, reads go to the primary");
+			}
+		} catch (SQLException e) {
+			LOG.warn("Replica probe failed, reads go to the primary: " + e.getMessage());
+		}
+		if (up && !healthy) LOG.info("Replica available, reads go to the replica");
+		healthy = up;
+	}
+
+	//Call of a read method, connections opened within are taken from the replica
+	public <T> T read(Callable<T> call) throws Exception {
+		Boolean previous = READ.get();
+		READ.set(Boolean.TRUE);
+		try {
+			return call.call();
+		} finally {
+			if (previous == null) READ.remove(); else READ.set(previous);
+		}
+	}
+
+	//Client has written recently: its reads are routed to the primary (set for each request)
+	public void requirePrimary(boolean required) {
+		if (required) PRIMARY_REQUIRED.set(Boolean.TRUE); else PRIMARY_REQUIRED.remove();
+	}
+
+	//State for the readiness check
+	public String status() {
+		return !enabled ? "disabled" : healthy ? "ok" : "fallback";
+	}
+
+	//Connections of the current call are taken from the replica (unless it fails on connect)
+	public boolean replicaRead() {
+		return enabled && healthy && Boolean.TRUE.equals(READ.get()) && !Boolean.TRUE.equals(PRIMARY_REQUIRED.get());
+	}
+
+	AgroalDataSource primary() {
+		return primary;
+	}
+
+	Connection connection() throws SQLException {
+		if (replicaRead()) {
+			try {
+				Connection connection = replica.getConnection();
+				count("replica");
+				return connection;
+			} catch (SQLException e) {
+				//Fallback until the next successful probe
+				healthy = false;
+				LOG.warn("Replica not available, reads go to the primary: " + e.getMessage());
+				count("fallback");
+			}
+		}
+		count("primary");
+		return primary.getConnection();
+	}
+
+	private void count(String target) {
+		registry.counter(ROUTING, new Tag("target", target)).inc();
+	}
+}
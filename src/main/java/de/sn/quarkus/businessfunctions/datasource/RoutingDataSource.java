@@ -0,0 +1,123 @@
+package de.sn.quarkus.businessfunctions.datasource;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Logger;
+
+import de.sn.quarkus.businessfunctions.metrics.DatabaseTiming;
+import de.sn.quarkus.businessfunctions.shard.ShardContext;
+import de.sn.quarkus.businessfunctions.shard.ShardDirectory;
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.AgroalDataSourceMetrics;
+import io.agroal.api.AgroalPoolInterceptor;
+import io.agroal.api.configuration.AgroalDataSourceConfiguration;
+
+/**
+ * Default datasource (Hibernate ORM, health probe): connections of shard 0 are routed by ReplicaRouting,
+ * those of the other shards come from their datasources (ShardContext).
+ * Configuration, metrics and pool management are those of the primary.
+ */
+public class RoutingDataSource implements AgroalDataSource {
+
+	private static final long serialVersionUID = 4105463720925870041L;
+
+	private final transient ReplicaRouting routing;
+	private final transient ShardDirectory shards;
+
+	RoutingDataSource(ReplicaRouting routing, ShardDirectory shards) {
+		this.routing = routing;
+		this.shards = shards;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		//Statement executions are timed for the db phase of the endpoint latency
+		int shard = ShardContext.current();
+		if (shard > 0 && shards.enabled()) {
+			return DatabaseTiming.timed(shards.connection(shard));
+		}
+		return DatabaseTiming.timed(routing.connection());
+	}
+
+	//Explicit credentials are used for the primary only
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return routing.primary().getConnection(username, password);
+	}
+
+	@Override
+	public AgroalDataSourceConfiguration getConfiguration() {
+		return routing.primary().getConfiguration();
+	}
+
+	@Override
+	public AgroalDataSourceMetrics getMetrics() {
+		return routing.primary().getMetrics();
+	}
+
+	@Override
+	public void flush(FlushMode mode) {
+		routing.primary().flush(mode);
+	}
+
+	@Override
+	public void setPoolInterceptors(Collection<? extends AgroalPoolInterceptor> interceptors) {
+		routing.primary().setPoolInterceptors(interceptors);
+	}
+
+	@Override
+	public List<AgroalPoolInterceptor> getPoolInterceptors() {
+		return routing.primary().getPoolInterceptors();
+	}
+
+	//Primary connection is valid (AgroalDataSource.isHealthy, not declared by every Agroal version)
+	public boolean isHealthy(boolean newConnection) throws SQLException {
+		try (Connection connection = routing.primary().getConnection()) {
+			return connection.isValid(0);
+		}
+	}
+
+	//Datasources are closed by Quarkus
+	@Override
+	public void close() {
+	}
+
+	@Override
+	public PrintWriter getLogWriter() throws SQLException {
+		return routing.primary().getLogWriter();
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) throws SQLException {
+		routing.primary().setLogWriter(out);
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) throws SQLException {
+		routing.primary().setLoginTimeout(seconds);
+	}
+
+	@Override
+	public int getLoginTimeout() throws SQLException {
+		return routing.primary().getLoginTimeout();
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		return routing.primary().getParentLogger();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		return routing.primary().unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return routing.primary().isWrapperFor(iface);
+	}
+}
@@ -0,0 +1,29 @@
+package de.sn.quarkus.businessfunctions.datasource;
+
+import javax.annotation.Priority;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Alternative;
+import javax.enterprise.inject.Default;
+import javax.enterprise.inject.Produces;
+
+import de.sn.quarkus.businessfunctions.shard.ShardDirectory;
+import io.agroal.api.AgroalDataSource;
+
+/**
+ * Replaces the default datasource of all injection points (Hibernate ORM, health probe) by the routing datasource.
+ * Primary and replica are the named datasources "primary" and "replica", further shards "shard1", "shard2", ...
+ */
+@Alternative
+@Priority(1)
+@ApplicationScoped
+public class RoutingDataSourceProducer {
+
+	@Produces
+	@Alternative
+	@Priority(1)
+	@Default
+	@ApplicationScoped
+	AgroalDataSource dataSource(ReplicaRouting routing, ShardDirectory shards) {
+		return new RoutingDataSource(routing, shards);
+	}
+}
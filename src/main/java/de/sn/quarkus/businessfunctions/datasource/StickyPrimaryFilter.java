@@ -0,0 +1,54 @@
+package de.sn.quarkus.businessfunctions.datasource;
+
+import java.lang.reflect.Method;
+
+import javax.inject.Inject;
+import javax.ws.rs.HttpMethod;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.NewCookie;
+import javax.ws.rs.ext.Provider;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import de.sn.quarkus.businessfunctions.transaction.ReadOnly;
+
+/**
+ * Read-your-writes: a successful write sets a short-lived cookie, reads of requests with that cookie
+ * are routed to the primary instead of the (possibly lagging) replica.
+ */
+@Provider
+public class StickyPrimaryFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+	public static final String COOKIE = "bf-primary";
+
+	@Context
+	ResourceInfo resourceInfo;
+
+	@Inject
+	ReplicaRouting routing;
+
+	@ConfigProperty(name = "bf.replica.sticky-seconds", defaultValue = "5")
+	int stickySeconds;
+
+	@Override
+	public void filter(ContainerRequestContext request) {
+		routing.requirePrimary(request.getCookies().containsKey(COOKIE));
+	}
+
+	@Override
+	public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+		routing.requirePrimary(false);
+		Method method = resourceInfo.getResourceMethod();
+		if (method == null || method.isAnnotationPresent(ReadOnly.class) || HttpMethod.GET.equals(request.getMethod())
+				|| response.getStatus() >= 400) {
+			return;
+		}
+		response.getHeaders().add(HttpHeaders.SET_COOKIE, new NewCookie(COOKIE, "1", "/", null, null, stickySeconds, false));
+	}
+}
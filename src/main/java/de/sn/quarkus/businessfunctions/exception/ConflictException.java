@@ -0,0 +1,10 @@
+package de.sn.quarkus.businessfunctions.exception;
+
+public class ConflictException extends BusinessException 
+{
+	private static final long serialVersionUID = -8560227185169702915L;
+	public ConflictException(String exception) {
+		super(exception);
+		this.setCode("40016");
+	}
+}
@@ -0,0 +1,25 @@
+package de.sn.quarkus.businessfunctions.exception;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+//Optimistic locking: record has been changed since the given version was read
+@Provider
+public class ConflictExceptionMapper implements ExceptionMapper<ConflictException> 
+{
+    @Override
+    public Response toResponse(ConflictException exception) 
+    {
+    	ErrorsResponse errors = new ErrorsResponse();
+            errors.getErrorList().add(new ErrorResponse(
+            		exception.getCode(), 
+            		exception.getMessage(),
+            		null,
+            		null,
+            		null)
+            		);
+    	return Response.status(Status.CONFLICT).entity(errors).build();  
+    }
+}
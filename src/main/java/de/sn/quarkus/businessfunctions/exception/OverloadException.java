@@ -0,0 +1,18 @@
+package de.sn.quarkus.businessfunctions.exception;
+
+public class OverloadException extends BusinessException 
+{
+	private static final long serialVersionUID = -8560227185169702916L;
+
+	private final int retryAfter;
+
+	public OverloadException(String exception, int retryAfter) {
+		super("50301", exception);
+		this.retryAfter = retryAfter;
+	}
+
+	//Seconds
+	public int getRetryAfter() {
+		return retryAfter;
+	}
+}
@@ -0,0 +1,28 @@
+package de.sn.quarkus.businessfunctions.exception;
+
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+//Admission control: endpoint class is saturated, fast rejection instead of waiting in the worker pool
+@Provider
+public class OverloadExceptionMapper implements ExceptionMapper<OverloadException> 
+{
+    @Override
+    public Response toResponse(OverloadException exception) 
+    {
+    	ErrorsResponse errors = new ErrorsResponse();
+            errors.getErrorList().add(new ErrorResponse(
+            		exception.getCode(), 
+            		exception.getMessage(),
+            		null,
+            		null,
+            		null)
+            		);
+    	return Response.status(Status.SERVICE_UNAVAILABLE)
+    			.header(HttpHeaders.RETRY_AFTER, exception.getRetryAfter())
+    			.entity(errors).build();  
+    }
+}
@@ -0,0 +1,90 @@
+package de.sn.quarkus.businessfunctions.health;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.AgroalDataSourceMetrics;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+
+/**
+ * Probes the database on a background schedule with a cheap query and keeps the last result.
+ * Health checks read the cached sample, so probes never open a transaction or wait for the database.
+ */
+@ApplicationScoped
+public class DatabaseProbe {
+
+	private static final Logger LOG = Logger.getLogger(DatabaseProbe.class);
+
+	@Inject
+	AgroalDataSource dataSource;
+
+	@ConfigProperty(name = "bf.health.query-timeout", defaultValue = "2")
+	int queryTimeout;
+
+	private volatile Sample last;
+
+	//First sample right at startup, readiness is down until then
+	void onStart(@Observes StartupEvent event) {
+		probe();
+	}
+
+	@Scheduled(every = "{bf.health.interval}", identity = "database-probe")
+	void probe() {
+		long start = System.nanoTime();
+		String error = null;
+		try (Connection connection = dataSource.getConnection();
+				Statement statement = connection.createStatement()) {
+			statement.setQueryTimeout(queryTimeout);
+			statement.execute("SELECT 1");
+		} catch (SQLException e) {
+			LOG.warn("Database probe failed: " + e.getMessage());
+			error = e.getMessage();
+		}
+		long latency = System.nanoTime() - start;
+		AgroalDataSourceMetrics metrics = dataSource.getMetrics();
+		last = new Sample(System.currentTimeMillis(), latency / 1_000_000, error,
+				metrics.activeCount(), metrics.awaitingCount(),
+				dataSource.getConfiguration().connectionPoolConfiguration().maxSize());
+	}
+
+	//Last probe result, null until the first probe has run
+	public Sample last() {
+		return last;
+	}
+
+	/**
+	 * Result of one probe: latency of connection acquisition and query, pool usage at that time.
+	 */
+	public static final class Sample {
+		public final long timestamp;
+		public final long latencyMillis;
+		public final String error;
+		public final long activeConnections;
+		public final long awaitingThreads;
+		public final int maxConnections;
+
+		Sample(long timestamp, long latencyMillis, String error, long activeConnections, long awaitingThreads, int maxConnections) {
+			this.timestamp = timestamp;
+			this.latencyMillis = latencyMillis;
+			this.error = error;
+			this.activeConnections = activeConnections;
+			this.awaitingThreads = awaitingThreads;
+			this.maxConnections = maxConnections;
+		}
+
+		//Share of the pool in use, 0.0 - 1.0
+		public double poolUsage() {
+			return (maxConnections > 0) ? (double) activeConnections / maxConnections : 0.0;
+		}
+	}
+}
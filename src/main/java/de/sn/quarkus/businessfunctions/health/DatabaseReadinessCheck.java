@@ -0,0 +1,71 @@
+package de.sn.quarkus.businessfunctions.health;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.HealthCheckResponseBuilder;
+import org.eclipse.microprofile.health.Readiness;
+
+import de.sn.quarkus.businessfunctions.datasource.ReplicaRouting;
+
+/**
+ * Readiness from the cached database probe. Reports "degraded" (still up) when latency or pool usage
+ * cross the degraded thresholds and goes down on probe errors, stale samples or the down thresholds.
+ */
+@Readiness
+@ApplicationScoped
+public class DatabaseReadinessCheck implements HealthCheck {
+
+	@Inject
+	DatabaseProbe probe;
+
+	@Inject
+	ReplicaRouting replicaRouting;
+
+	@ConfigProperty(name = "bf.health.max-age", defaultValue = "30000")
+	long maxAgeMillis;
+
+	@ConfigProperty(name = "bf.health.latency.degraded", defaultValue = "100")
+	long latencyDegradedMillis;
+
+	@ConfigProperty(name = "bf.health.latency.down", defaultValue = "1000")
+	long latencyDownMillis;
+
+	@ConfigProperty(name = "bf.health.pool.degraded", defaultValue = "0.8")
+	double poolDegraded;
+
+	@ConfigProperty(name = "bf.health.pool.down-awaiting", defaultValue = "10")
+	long poolDownAwaiting;
+
+	@Override
+	public HealthCheckResponse call() {
+		HealthCheckResponseBuilder response = HealthCheckResponse.named("database (cached probe)");
+		DatabaseProbe.Sample sample = probe.last();
+		if (sample == null) {
+			return response.down().withData("status", "no probe yet").build();
+		}
+		long age = System.currentTimeMillis() - sample.timestamp;
+		response.withData("age", age)
+				.withData("latency", sample.latencyMillis)
+				.withData("activeConnections", sample.activeConnections)
+				.withData("awaitingThreads", sample.awaitingThreads)
+				.withData("maxConnections", sample.maxConnections)
+				.withData("replica", replicaRouting.status()); //Not part of readiness, reads fall back to the primary
+		if (sample.error != null) {
+			return response.down().withData("status", "error").withData("error", sample.error).build();
+		}
+		if (age > maxAgeMillis) {
+			return response.down().withData("status", "stale").build();
+		}
+		if (sample.latencyMillis >= latencyDownMillis || sample.awaitingThreads >= poolDownAwaiting) {
+			return response.down().withData("status", "overloaded").build();
+		}
+		if (sample.latencyMillis >= latencyDegradedMillis || sample.poolUsage() >= poolDegraded) {
+			return response.up().withData("status", "degraded").build();
+		}
+		return response.up().withData("status", "ok").build();
+	}
+}
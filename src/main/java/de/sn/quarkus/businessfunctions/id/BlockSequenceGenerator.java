@@ -0,0 +1,64 @@
+package de.sn.quarkus.businessfunctions.id;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.Optimizer;
+import org.hibernate.id.enhanced.OptimizerFactory;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import de.sn.quarkus.businessfunctions.shard.ShardContext;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Sequence of one entity, ids are reserved in blocks: one sequence call per block instead of one per insert.
+ * The block size of the annotation can be overridden with bf.id.block-size.<sequence name>,
+ * sequences created by Hibernate use the block size as increment (pooled optimizer).
+ * Each shard has its own sequence and id range, so blocks are reserved and handed out per shard.
+ */
+@RegisterForReflection
+public class BlockSequenceGenerator extends SequenceStyleGenerator {
+
+	public static final String NAME = "de.sn.quarkus.businessfunctions.id.BlockSequenceGenerator";
+	public static final String BLOCK_SIZE = "bf.id.block-size.";
+
+	//Optimizers of the shards > 0, shard 0 uses the optimizer of the generator
+	private final Map<Integer, Optimizer> shardOptimizers = new ConcurrentHashMap<>();
+
+	@Override
+	public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+		String sequence = params.getProperty(SEQUENCE_PARAM);
+		blockSize(sequence).ifPresent(size -> params.setProperty(INCREMENT_PARAM, size.toString()));
+		super.configure(type, params, serviceRegistry);
+	}
+
+	@Override
+	public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+		int shard = ShardContext.current();
+		if (shard == 0) {
+			return super.generate(session, object);
+		}
+		Optimizer optimizer = shardOptimizers.computeIfAbsent(shard, key -> OptimizerFactory.buildOptimizer(
+				StandardOptimizerDescriptor.POOLED.getExternalName(), Long.class, getDatabaseStructure().getIncrementSize(), 1));
+		return optimizer.generate(getDatabaseStructure().buildCallback(session));
+	}
+
+	//Configured block size, empty without configuration (e.g. Hibernate bootstrapped without Quarkus)
+	private static Optional<Integer> blockSize(String sequence) {
+		try {
+			return ConfigProvider.getConfig().getOptionalValue(BLOCK_SIZE + sequence, Integer.class);
+		} catch (IllegalStateException e) {
+			return Optional.empty();
+		}
+	}
+}
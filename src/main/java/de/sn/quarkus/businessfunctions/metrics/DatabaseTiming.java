@@ -0,0 +1,64 @@
+package de.sn.quarkus.businessfunctions.metrics;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+
+/**
+ * Time the current thread has spent in JDBC statement executions (execute, executeQuery, executeUpdate,
+ * executeBatch, ...) since the last reset: the db phase of EndpointLatencyFilter. Connections of the
+ * routing datasource are wrapped, work of other threads (e.g. scatter-gather parts) is not counted.
+ */
+public final class DatabaseTiming {
+
+	private static final ThreadLocal<long[]> ELAPSED = ThreadLocal.withInitial(() -> new long[1]);
+
+	private DatabaseTiming() {
+	}
+
+	public static void reset() {
+		ELAPSED.get()[0] = 0;
+	}
+
+	//Nanoseconds in statement executions since the last reset
+	public static long elapsed() {
+		return ELAPSED.get()[0];
+	}
+
+	public static Connection timed(Connection connection) {
+		return (Connection) Proxy.newProxyInstance(DatabaseTiming.class.getClassLoader(), new Class<?>[] {Connection.class},
+				(proxy, method, args) -> {
+					Object result = invoke(connection, method, args);
+					//Statements of the connection (Statement, PreparedStatement, CallableStatement)
+					if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+						return statement((Statement) result, method.getReturnType());
+					}
+					return result;
+				});
+	}
+
+	private static Object statement(Statement statement, Class<?> type) {
+		return Proxy.newProxyInstance(DatabaseTiming.class.getClassLoader(), new Class<?>[] {type},
+				(proxy, method, args) -> {
+					if (!method.getName().startsWith("execute")) {
+						return invoke(statement, method, args);
+					}
+					long start = System.nanoTime();
+					try {
+						return invoke(statement, method, args);
+					} finally {
+						ELAPSED.get()[0] += System.nanoTime() - start;
+					}
+				});
+	}
+
+	private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		} catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package de.sn.quarkus.businessfunctions.metrics;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricType;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Tag;
+import org.eclipse.microprofile.metrics.annotation.RegistryType;
+
+/**
+ * Latency of every REST endpoint, measured with the monotonic clock in four phases:
+ * app (resource method incl. validation, transaction and database access), db (JDBC statement
+ * executions of the request thread, DatabaseTiming), ser (serialization of the response entity) and total.
+ * Each phase is recorded in a histogram (endpoint.latency, tags endpoint and phase). The Server-Timing
+ * header carries the phases known before the body is written (app, db), so the entity is streamed
+ * to the client without buffering; responsetime keeps the app phase in milliseconds.
+ */
+@Provider
+public class EndpointLatencyFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+	private static final String START = EndpointLatencyFilter.class.getName() + ".start";
+	private static final String HANDLED = EndpointLatencyFilter.class.getName() + ".handled";
+	private static final String ENDPOINT = EndpointLatencyFilter.class.getName() + ".endpoint";
+
+	private static final Metadata LATENCY = Metadata.builder()
+			.withName("endpoint.latency")
+			.withDescription("latency of REST endpoints per phase (app, db, ser, total)")
+			.withType(MetricType.HISTOGRAM)
+			.withUnit(MetricUnits.NANOSECONDS)
+			.build();
+
+	@Context
+	ResourceInfo resourceInfo;
+
+	@Inject
+	@RegistryType(type = MetricRegistry.Type.APPLICATION)
+	MetricRegistry registry;
+
+	@Override
+	public void filter(ContainerRequestContext request) {
+		request.setProperty(START, System.nanoTime());
+		DatabaseTiming.reset();
+	}
+
+	@Override
+	public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+		Long start = (Long) request.getProperty(START);
+		if (start == null || resourceInfo.getResourceMethod() == null) {
+			return;
+		}
+		long handled = System.nanoTime();
+		long db = DatabaseTiming.elapsed();
+		String endpoint = resourceInfo.getResourceClass().getSimpleName() + "." + resourceInfo.getResourceMethod().getName();
+		record(endpoint, "app", handled - start);
+		record(endpoint, "db", db);
+		response.getHeaders().putSingle("responsetime", TimeUnit.NANOSECONDS.toMillis(handled - start));
+		response.getHeaders().putSingle("Server-Timing", serverTiming(handled - start, db));
+		if (response.hasEntity()) {
+			//Serialization is measured by the writer interceptor
+			request.setProperty(HANDLED, handled);
+			request.setProperty(ENDPOINT, endpoint);
+		} else {
+			record(endpoint, "total", handled - start);
+		}
+	}
+
+	@Override
+	public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+		Long start = (Long) context.getProperty(START);
+		Long handled = (Long) context.getProperty(HANDLED);
+		String endpoint = (String) context.getProperty(ENDPOINT);
+		if (start == null || handled == null || endpoint == null) {
+			context.proceed();
+			return;
+		}
+		//Written directly to the client, serialization and total are known afterwards (histogram only)
+		long serializationStart = System.nanoTime();
+		context.proceed();
+		long end = System.nanoTime();
+		record(endpoint, "ser", end - serializationStart);
+		record(endpoint, "total", end - start);
+	}
+
+	private void record(String endpoint, String phase, long nanos) {
+		registry.histogram(LATENCY, new Tag("endpoint", endpoint), new Tag("phase", phase)).update(nanos);
+	}
+
+	//Server-Timing durations in milliseconds
+	private static String serverTiming(long app, long db) {
+		return new StringBuilder()
+				.append("app;desc=\"resource method incl. database\";dur=").append(millis(app))
+				.append(", db;desc=\"JDBC statements\";dur=").append(millis(db))
+				.toString();
+	}
+
+	private static String millis(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+	}
+}
@@ -1,28 +1,57 @@
 package de.sn.quarkus.businessfunctions.model;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.json.bind.annotation.JsonbTransient;
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.ManyToOne;
 import javax.persistence.OneToMany;
+import javax.persistence.Table;
+import javax.persistence.Version;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.query.NativeQuery;
 import org.hibernate.validator.constraints.Length;
 
-import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import de.sn.quarkus.businessfunctions.id.BlockSequenceGenerator;
 import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.panache.common.Parameters;
 
 @Entity
+@Cacheable //Second level cache
+@Table(indexes = {
+		@Index(name = "item_project_level_id_idx", columnList = "project_id, level, id"), //Keyset pagination
+		@Index(name = "item_item_id_idx", columnList = "item_id"), //Hierarchy navigation
+		@Index(name = "item_path_idx", columnList = "path")}) //Sub tree range scan
 @Schema(name="Item", description="business function item") //OpenAPI
-public class Item extends PanacheEntity{
+public class Item extends PanacheEntityBase{
+	
+	//Own sequence, ids are allocated in blocks (no sequence round trip per insert), size bf.id.block-size.item_seq
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "item_seq")
+	@GenericGenerator(name = "item_seq", strategy = BlockSequenceGenerator.NAME, parameters = {
+			@Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "item_seq"),
+			@Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50"),
+			@Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled")})
+	public Long id;
 	
 	@NotNull(message="item name cannot be blank") //Validation
 	@Length(min = 1, max = 20, message="item name must be between 1 and 20")//Validation
@@ -39,26 +68,104 @@ public class Item extends PanacheEntity{
 	@Column(name= "level", nullable = false)//Database
 	public Integer level;
 
-	//Projects containing items
-	@ManyToOne
+	//Optimistic locking
+	@Schema(description = "version of the item, incremented with every update", required = false)
+	@Version
+	@Column(name= "version", nullable = false)//Database
+	public Long version;
+
+	//Projects containing items, writes set a reference only (project and its items are not loaded)
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JsonbTransient
 	public Project project; 
 	//Lower items in hierarchy
 	@OneToMany(mappedBy = "item", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) //Second level cache
 	public List<Item> items;
 	
-	//Higher item in hierarchy
-	@ManyToOne
+	//Higher item in hierarchy, reference only as for the project
+	@ManyToOne(fetch = FetchType.LAZY)
     @JsonbTransient
     public Item item; 
 	
+	//Materialized path of all higher items in hierarchy, e.g. "/3/4/", main items: "/"
+	@JsonbTransient
+	@Column(name= "path", length = 255, nullable = true)//Database
+	public String path;
+	
+	//Path of lower items of this item
+	public String childPath() {
+		return childPath(path, id);
+	}
+	
+	public static String childPath(String path, Long id) {
+		return ((path != null) ? path : "/") + id + "/";
+	}
+	
+	//Ids of all higher items from main item down to the direct higher item
+	public List<Long> ancestorIds() {
+		List<Long> ids = new ArrayList<>();
+		if (path != null) {
+			for (String id : path.split("/")) {
+				if (!id.isEmpty()) ids.add(Long.valueOf(id));
+			}
+		}
+		return ids;
+	}
+	
 	//Customized queries...
 	public static PanacheQuery<PanacheEntityBase> findByLevelAndProjectId(Integer level, Long projectid){
 		 return find("level = :level and project.id = :projectid",
-	         Parameters.with("level", level).and("projectid", projectid));
+	         Parameters.with("level", level).and("projectid", projectid))
+				 .withHint(QueryHints.CACHEABLE, true);
 	}
 	
 	public static PanacheQuery<PanacheEntityBase> findByProjectId(Long projectid){
-		 return find("project.id", projectid);
+		 return find("project.id", projectid)
+				 .withHint(QueryHints.CACHEABLE, true);
+	}
+	
+	//Any lower item of an item, without loading the item and its lower items
+	public static boolean existsByItemId(Long itemid){
+		return exists("SELECT EXISTS (SELECT 1 FROM item WHERE item_id = :id)", itemid);
+	}
+	
+	private static boolean exists(String sql, Long id){
+		Object exists = getEntityManager()
+				.createNativeQuery(sql)
+				.setParameter("id", id)
+				.unwrap(NativeQuery.class)
+				.addSynchronizedQuerySpace("item")
+				.getSingleResult();
+		return Boolean.TRUE.equals(exists);
+	}
+	
+	//All lower items of an item: range scan on the materialized path
+	public static long countDescendants(Item item){
+		return count("path like ?1", item.childPath() + "%");
+	}
+	
+	//Keyset pagination: seek on (project, level, id) after the given key, first page without key
+	public static PanacheQuery<PanacheEntityBase> findByProjectIdAfter(Long projectid, Integer level, Long id){
+		if (level == null || id == null) {
+			return find("project.id = :projectid order by level, id",
+					Parameters.with("projectid", projectid))
+					.withHint(QueryHints.CACHEABLE, true);
+		}
+		return find("project.id = :projectid and level >= :level and (level > :level or id > :id) order by level, id",
+				Parameters.with("projectid", projectid).and("level", level).and("id", id))
+				.withHint(QueryHints.CACHEABLE, true);
+	}
+	
+	//Keyset pagination: seek on (project, level, id) for a fixed level
+	public static PanacheQuery<PanacheEntityBase> findByLevelAndProjectIdAfter(Integer level, Long projectid, Long id){
+		if (id == null) {
+			return find("level = :level and project.id = :projectid order by id",
+					Parameters.with("level", level).and("projectid", projectid))
+					.withHint(QueryHints.CACHEABLE, true);
+		}
+		return find("level = :level and project.id = :projectid and id > :id order by id",
+				Parameters.with("level", level).and("projectid", projectid).and("id", id))
+				.withHint(QueryHints.CACHEABLE, true);
 	}
 }
@@ -0,0 +1,36 @@
+package de.sn.quarkus.businessfunctions.model;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.hibernate.validator.constraints.Length;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@Schema(name="ItemImport", description="business function item of a bulk import, higher items are referenced within the import or by id") //OpenAPI
+@RegisterForReflection
+public class ItemImport {
+
+	@Schema(description = "client reference of the item, unique within the import", required = false, example = "a1")
+	public String ref;
+
+	@Schema(description = "client reference of the higher item, which must be contained before in the same import", required = false, example = "a0")
+	public String parentRef;
+
+	@Schema(description = "id of an existing higher item of the same project", required = false)
+	public Long parentId;
+
+	@NotNull(message="item name cannot be blank") //Validation
+	@Length(min = 1, max = 20, message="item name must be between 1 and 20")//Validation
+	public String name;
+
+	@Length(min = 1, max = 255, message="image URL must be between 1 and 255")//Validation
+	public String imageURL;
+
+	@NotNull(message="item level cannot be blank") //Validation
+	@Min(0)//Validation
+	@Max(5)//Validation
+	public Integer level;
+}
@@ -0,0 +1,19 @@
+package de.sn.quarkus.businessfunctions.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@Schema(name="ItemLookup", description="items for a set of ids in order of the request, ids without item are listed separately") //OpenAPI
+@RegisterForReflection
+public class ItemLookup {
+
+	@Schema(description = "found items in order of the requested ids", required = true)
+	public List<Item> items = new ArrayList<>();
+
+	@Schema(description = "requested ids without item", required = true)
+	public List<Long> missing = new ArrayList<>();
+}
@@ -0,0 +1,63 @@
+package de.sn.quarkus.businessfunctions.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@Schema(name="ItemNode", description="business function item without persistence context, e.g. node of an item tree") //OpenAPI
+@RegisterForReflection
+public class ItemNode {
+
+	@Schema(description = "unique item identifier", required = true)
+	public Long id;
+
+	@Schema(description = "name of the item", maxLength = 20, required = true)
+	public String name;
+
+	@Schema(description = "image URL of the item", maxLength = 255, required = false)
+	public String imageURL;
+
+	@Schema(description = "level of the item, value between 0 and 5", required = true)
+	public Integer level;
+
+	@Schema(description = "identifier of the higher item in hierarchy, empty for main items", required = false)
+	public Long parentId;
+
+	@Schema(description = "lower items in hierarchy", required = false)
+	public List<ItemNode> items;
+
+	public ItemNode() {
+	}
+
+	public ItemNode(Long id, String name, String imageURL, Integer level, Long parentId) {
+		this.id = id;
+		this.name = name;
+		this.imageURL = imageURL;
+		this.level = level;
+		this.parentId = parentId;
+	}
+
+	//Build hierarchy from flat node list in one pass, nodes without known parent become roots
+	public static List<ItemNode> buildTree(List<ItemNode> nodes) {
+		Map<Long, ItemNode> nodesById = new HashMap<>(nodes.size() * 2);
+		for (ItemNode node : nodes) {
+			node.items = new ArrayList<>();
+			nodesById.put(node.id, node);
+		}
+		List<ItemNode> roots = new ArrayList<>();
+		for (ItemNode node : nodes) {
+			ItemNode parent = (node.parentId != null) ? nodesById.get(node.parentId) : null;
+			if (parent != null) {
+				parent.items.add(node);
+			} else {
+				roots.add(node);
+			}
+		}
+		return roots;
+	}
+}
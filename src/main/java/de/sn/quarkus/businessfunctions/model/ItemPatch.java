@@ -0,0 +1,29 @@
+package de.sn.quarkus.businessfunctions.model;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.hibernate.validator.constraints.Length;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@Schema(name="ItemPatch", description="partial update of an item, attributes without value are not changed") //OpenAPI
+@RegisterForReflection
+public class ItemPatch {
+
+	@Schema(description = "version of the item as read before, the update fails with 409 if the item has been changed since", required = true)
+	@NotNull(message="item version cannot be blank") //Validation
+	public Long version;
+
+	@Length(min = 1, max = 20, message="item name must be between 1 and 20")//Validation
+	public String name;
+
+	@Length(min = 1, max = 255, message="image URL must be between 1 and 255")//Validation
+	public String imageURL;
+
+	@Min(0)//Validation
+	@Max(5)//Validation
+	public Integer level;
+}
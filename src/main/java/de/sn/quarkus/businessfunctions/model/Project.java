@@ -2,35 +2,80 @@ package de.sn.quarkus.businessfunctions.model;
 
 import java.util.List;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
 import javax.persistence.OneToMany;
+import javax.persistence.Version;
 import javax.validation.constraints.NotNull;
 
 import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.OptimisticLock;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
-import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import de.sn.quarkus.businessfunctions.id.BlockSequenceGenerator;
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.panache.common.Parameters;
 
 @Entity
+@Cacheable //Second level cache
 @Schema(name="Project", description="project = container of business function items") //OpenAPI
-public class Project extends PanacheEntity{
+public class Project extends PanacheEntityBase{
+	
+	//Own sequence, ids are allocated in blocks (no sequence round trip per insert), size bf.id.block-size.project_seq
+	@Id
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "project_seq")
+	@GenericGenerator(name = "project_seq", strategy = BlockSequenceGenerator.NAME, parameters = {
+			@Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "project_seq"),
+			@Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50"),
+			@Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled")})
+	public Long id;
 	
 	@Schema(description = "name of the item", maxLength = 20, required = true, example = "My magic project")	
 	@NotNull(message="item name cannot be blank") //Validation
 	@Column(name= "name", length = 20, nullable = false)//Database
 	public String name;
 	
+	//Optimistic locking of the project attributes, plus the item changes of table item_change it is the entity tag version (ProjectVersions)
+	@Schema(description = "version of the project, incremented with every update of the project (not of its items)", required = false)
+	@Version
+	@Column(name= "version", nullable = false)//Database
+	public Long version;
+	
 	//Items in project
 	@Schema(description = "list of all items in that project", required = false)
 	@OneToMany(mappedBy = "project", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE) //Second level cache
+	@OptimisticLock(excluded = true) //Changes of items don't increment the project version
 	public List<Item> items;
 	
 	//Customized queries
+	public static PanacheQuery<Project> findAllCached(){
+		PanacheQuery<Project> query = findAll();
+		return query.withHint(QueryHints.CACHEABLE, true);
+	}
+	
 	public static List<Project> findAllByNameLike(String name){
         return find("name LIKE concat('%', :name, '%')", 
                 Parameters.with("name", name)).list();
     }
+	
+	//Keyset pagination: seek on id after the given key, first page without key
+	public static PanacheQuery<Project> findAllAfter(Long id){
+		PanacheQuery<Project> query = (id == null) 
+				? find("order by id") 
+				: find("id > ?1 order by id", id);
+		return query.withHint(QueryHints.CACHEABLE, true);
+	}
 }
@@ -0,0 +1,19 @@
+package de.sn.quarkus.businessfunctions.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@Schema(name="ProjectLookup", description="projects for a set of ids in order of the request, ids without project are listed separately") //OpenAPI
+@RegisterForReflection
+public class ProjectLookup {
+
+	@Schema(description = "found projects in order of the requested ids", required = true)
+	public List<Project> projects = new ArrayList<>();
+
+	@Schema(description = "requested ids without project", required = true)
+	public List<Long> missing = new ArrayList<>();
+}
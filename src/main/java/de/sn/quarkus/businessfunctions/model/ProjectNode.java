@@ -0,0 +1,29 @@
+package de.sn.quarkus.businessfunctions.model;
+
+import java.util.List;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@Schema(name="ProjectNode", description="project without persistence context, items as hierarchy") //OpenAPI
+@RegisterForReflection
+public class ProjectNode {
+
+	@Schema(description = "unique project identifier", required = true)
+	public Long id;
+
+	@Schema(description = "name of the project", maxLength = 20, required = true)
+	public String name;
+
+	@Schema(description = "item hierarchy of the project, main items on top", required = false)
+	public List<ItemNode> items;
+
+	public ProjectNode() {
+	}
+
+	public ProjectNode(Long id, String name) {
+		this.id = id;
+		this.name = name;
+	}
+}
@@ -0,0 +1,21 @@
+package de.sn.quarkus.businessfunctions.model;
+
+import javax.validation.constraints.NotNull;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.hibernate.validator.constraints.Length;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@Schema(name="ProjectPatch", description="partial update of a project, attributes without value are not changed") //OpenAPI
+@RegisterForReflection
+public class ProjectPatch {
+
+	@Schema(description = "version of the project as read before, the update fails with 409 if the project has been changed since", required = true)
+	@NotNull(message="project version cannot be blank") //Validation
+	public Long version;
+
+	@Schema(description = "name of the project", maxLength = 20, required = false, example = "My magic project")
+	@Length(min = 1, max = 20, message="project name must be between 1 and 20")//Validation
+	public String name;
+}
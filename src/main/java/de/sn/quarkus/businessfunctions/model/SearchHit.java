@@ -0,0 +1,32 @@
+package de.sn.quarkus.businessfunctions.model;
+
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+@Schema(name="SearchHit", description="project or item found by name search") //OpenAPI
+@RegisterForReflection
+public class SearchHit {
+
+	@Schema(description = "unique project or item identifier", required = true)
+	public Long id;
+
+	@Schema(description = "name of the project or item", required = true)
+	public String name;
+
+	@Schema(description = "project of the item, empty for projects", required = false)
+	public Long projectId;
+
+	@Schema(description = "rank of the hit, higher is better (exact > prefix > word start > substring)", required = true)
+	public double score;
+
+	public SearchHit() {
+	}
+
+	public SearchHit(Long id, String name, Long projectId, double score) {
+		this.id = id;
+		this.name = name;
+		this.projectId = projectId;
+		this.score = score;
+	}
+}
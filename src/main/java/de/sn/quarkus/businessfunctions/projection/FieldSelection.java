@@ -0,0 +1,93 @@
+package de.sn.quarkus.businessfunctions.projection;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import de.sn.quarkus.businessfunctions.exception.BusinessException;
+
+/**
+ * Fields requested with ?fields= and lower items requested with ?expand=items&depth=n.
+ * Fields of lower items are given with prefix "items.", e.g. fields=id,name,items.id,items.name.
+ */
+public final class FieldSelection {
+
+	public enum Type {
+		PROJECT(Arrays.asList("id", "name"), Arrays.asList("id", "name")),
+		ITEM(Arrays.asList("id", "name", "imageURL", "level", "version", "parentId"), Arrays.asList("id", "name", "imageURL", "level", "version"));
+
+		final List<String> fields;
+		final List<String> defaults;
+
+		Type(List<String> fields, List<String> defaults) {
+			this.fields = fields;
+			this.defaults = defaults;
+		}
+	}
+
+	public static final String ITEMS = "items";
+
+	//Top level fields and fields of lower items, in order of the type
+	public final Set<String> fields;
+	public final Set<String> itemFields;
+	//Levels of lower items, 0 without expansion
+	public final int depth;
+
+	private FieldSelection(Set<String> fields, Set<String> itemFields, int depth) {
+		this.fields = Collections.unmodifiableSet(fields);
+		this.itemFields = Collections.unmodifiableSet(itemFields);
+		this.depth = depth;
+	}
+
+	//Null if neither fields nor expansion are requested, full representation is returned then
+	public static FieldSelection parse(Type type, String fields, String expand, Integer depth) {
+		if (fields == null && expand == null) {
+			return null;
+		}
+		boolean expandItems = false;
+		if (expand != null) {
+			if (!ITEMS.equals(expand.trim())) {
+				throw new BusinessException("40013", "Invalid expand " + expand + ", only items can be expanded");
+			}
+			expandItems = true;
+		}
+		Set<String> requested = new LinkedHashSet<>();
+		Set<String> requestedItems = new LinkedHashSet<>();
+		if (fields != null) {
+			for (String field : fields.split(",")) {
+				field = field.trim();
+				if (field.isEmpty()) continue;
+				if (ITEMS.equals(field)) {
+					expandItems = true;
+				} else if (field.startsWith(ITEMS + ".") && Type.ITEM.fields.contains(field.substring(ITEMS.length() + 1))) {
+					requestedItems.add(field.substring(ITEMS.length() + 1));
+					expandItems = true;
+				} else if (type.fields.contains(field)) {
+					requested.add(field);
+				} else {
+					throw new BusinessException("40013", "Unknown field " + field);
+				}
+			}
+		}
+		return new FieldSelection(
+				ordered(type.fields, requested.isEmpty() ? type.defaults : requested),
+				ordered(Type.ITEM.fields, requestedItems.isEmpty() ? Type.ITEM.defaults : requestedItems),
+				expandItems ? ((depth != null) ? depth : 1) : 0);
+	}
+
+	public boolean expand() {
+		return depth > 0;
+	}
+
+	private static Set<String> ordered(List<String> all, Iterable<String> selected) {
+		Set<String> fields = new LinkedHashSet<>();
+		Set<String> wanted = new LinkedHashSet<>();
+		selected.forEach(wanted::add);
+		for (String field : all) {
+			if (wanted.contains(field)) fields.add(field);
+		}
+		return fields;
+	}
+}
@@ -0,0 +1,171 @@
+package de.sn.quarkus.businessfunctions.projection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+
+/**
+ * Reads projects and items as projections of the requested fields only. Lower items are read
+ * with one recursive query limited to the requested depth, entities and their eager item
+ * collections are never loaded. Records are maps, so only the requested fields are serialized.
+ */
+@ApplicationScoped
+public class ProjectionReader {
+
+	//Field of the representation -> attribute in JPQL (alias i) and column in SQL
+	private static final Map<String, String[]> ITEM_COLUMNS = new HashMap<>();
+	static {
+		ITEM_COLUMNS.put("id", new String[] {"i.id", "id"});
+		ITEM_COLUMNS.put("name", new String[] {"i.name", "name"});
+		ITEM_COLUMNS.put("imageURL", new String[] {"i.imageURL", "imageurl"});
+		ITEM_COLUMNS.put("level", new String[] {"i.level", "level"});
+		ITEM_COLUMNS.put("version", new String[] {"i.version", "version"});
+		ITEM_COLUMNS.put("parentId", new String[] {"i.item.id", "item_id"});
+	}
+
+	@Inject
+	EntityManager em;
+
+	/**
+	 * Projects matching the condition (alias p), ordered by id.
+	 * Keys of the records are (id).
+	 */
+	public Projection projects(String where, Map<String, Object> parameters, int first, int max, FieldSelection selection) {
+		StringBuilder jpql = new StringBuilder("select p.id, p.name from Project p");
+		if (where != null) jpql.append(" where ").append(where);
+		jpql.append(" order by p.id");
+		List<Object[]> rows = page(em.createQuery(jpql.toString(), Object[].class), parameters, first, max);
+
+		Projection projection = new Projection();
+		Map<Long, Map<String, Object>> byId = new LinkedHashMap<>();
+		for (Object[] row : rows) {
+			Map<String, Object> record = new LinkedHashMap<>();
+			Long id = (Long) row[0];
+			if (selection.fields.contains("id")) record.put("id", id);
+			if (selection.fields.contains("name")) record.put("name", row[1]);
+			projection.records.add(record);
+			projection.keys.add(new long[] {id});
+			byId.put(id, record);
+		}
+		if (selection.expand() && !byId.isEmpty()) {
+			byId.values().forEach(record -> record.put(FieldSelection.ITEMS, new ArrayList<>()));
+			expand("i.project_id IN (:ids) AND i.item_id IS NULL", byId, true, selection);
+		}
+		return projection;
+	}
+
+	/**
+	 * Items matching the condition (alias i) in the given order.
+	 * Keys of the records are (level, id).
+	 */
+	public Projection items(String where, Map<String, Object> parameters, String orderBy, int first, int max, FieldSelection selection) {
+		List<String> fields = new ArrayList<>(selection.fields);
+		StringBuilder jpql = new StringBuilder("select i.id, i.level");
+		for (String field : fields) {
+			jpql.append(", ").append(ITEM_COLUMNS.get(field)[0]);
+		}
+		jpql.append(" from Item i where ").append(where).append(" order by ").append(orderBy);
+		List<Object[]> rows = page(em.createQuery(jpql.toString(), Object[].class), parameters, first, max);
+
+		Projection projection = new Projection();
+		Map<Long, Map<String, Object>> byId = new LinkedHashMap<>();
+		for (Object[] row : rows) {
+			Map<String, Object> record = new LinkedHashMap<>();
+			for (int i = 0; i < fields.size(); i++) {
+				record.put(fields.get(i), row[i + 2]);
+			}
+			Long id = (Long) row[0];
+			projection.records.add(record);
+			projection.keys.add(new long[] {((Number) row[1]).longValue(), id});
+			byId.put(id, record);
+		}
+		if (selection.expand() && !byId.isEmpty()) {
+			byId.values().forEach(record -> record.put(FieldSelection.ITEMS, new ArrayList<>()));
+			expand("i.item_id IN (:ids)", byId, false, selection);
+		}
+		return projection;
+	}
+
+	//Lower items of the given records down to the requested depth, attached to their higher item or project
+	@SuppressWarnings("unchecked")
+	private void expand(String rootCondition, Map<Long, Map<String, Object>> parents, boolean projectRoots, FieldSelection selection) {
+		List<String> fields = new ArrayList<>(selection.itemFields);
+		fields.remove("id");
+		fields.remove("parentId");
+		StringBuilder columns = new StringBuilder();
+		StringBuilder childColumns = new StringBuilder();
+		for (String field : fields) {
+			columns.append(", i.").append(ITEM_COLUMNS.get(field)[1]);
+			childColumns.append(", c.").append(ITEM_COLUMNS.get(field)[1]);
+		}
+		StringBuilder selected = new StringBuilder();
+		for (String field : fields) {
+			selected.append(", ").append(ITEM_COLUMNS.get(field)[1]);
+		}
+		String sql = "WITH RECURSIVE tree AS ("
+				+ " SELECT i.id, i.item_id, i.project_id" + columns + ", 0 AS depth FROM item i WHERE " + rootCondition
+				+ " UNION ALL"
+				+ " SELECT c.id, c.item_id, c.project_id" + childColumns + ", t.depth + 1 FROM item c"
+				+ " JOIN tree t ON c.item_id = t.id WHERE t.depth < :maxdepth)"
+				+ " SELECT id, item_id, project_id" + selected + ", depth FROM tree ORDER BY depth, id";
+		List<Object[]> rows = em.createNativeQuery(sql)
+				.setParameter("ids", new ArrayList<>(parents.keySet()))
+				.setParameter("maxdepth", selection.depth - 1)
+				.getResultList();
+
+		Map<Long, Map<String, Object>> nodes = new HashMap<>();
+		for (Object[] row : rows) {
+			Long id = ((Number) row[0]).longValue();
+			Long parentId = (row[1] != null) ? ((Number) row[1]).longValue() : null;
+			Long projectId = (row[2] != null) ? ((Number) row[2]).longValue() : null;
+			int depth = ((Number) row[row.length - 1]).intValue();
+			Map<String, Object> node = new LinkedHashMap<>();
+			for (String field : selection.itemFields) {
+				if ("id".equals(field)) {
+					node.put(field, id);
+				} else if ("parentId".equals(field)) {
+					node.put(field, parentId);
+				} else {
+					node.put(field, value(field, row[3 + fields.indexOf(field)]));
+				}
+			}
+			if (depth < selection.depth - 1) node.put(FieldSelection.ITEMS, new ArrayList<>());
+			nodes.put(id, node);
+
+			Map<String, Object> parent = (depth == 0)
+					? parents.get(projectRoots ? projectId : parentId)
+					: nodes.get(parentId);
+			if (parent != null) {
+				((List<Map<String, Object>>) parent.get(FieldSelection.ITEMS)).add(node);
+			}
+		}
+	}
+
+	//Native values as typed in the entities
+	private static Object value(String field, Object value) {
+		if (value instanceof Number) {
+			return ("level".equals(field)) ? (Object) ((Number) value).intValue() : (Object) ((Number) value).longValue();
+		}
+		return value;
+	}
+
+	private static List<Object[]> page(TypedQuery<Object[]> query, Map<String, Object> parameters, int first, int max) {
+		parameters.forEach(query::setParameter);
+		return query.setFirstResult(first).setMaxResults(max).getResultList();
+	}
+
+	/**
+	 * Projected records and their sort keys (e.g. for the cursor of keyset pagination).
+	 */
+	public static class Projection {
+		public final List<Map<String, Object>> records = new ArrayList<>();
+		public final List<long[]> keys = new ArrayList<>();
+	}
+}
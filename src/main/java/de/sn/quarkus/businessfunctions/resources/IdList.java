@@ -0,0 +1,46 @@
+package de.sn.quarkus.businessfunctions.resources;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import de.sn.quarkus.businessfunctions.exception.BusinessException;
+
+/**
+ * Id sets of multi-get requests: ids=1,2,3 or ids=1&ids=2 or a JSON array.
+ * Duplicates are removed, the order of the request is kept.
+ */
+public final class IdList {
+
+	private IdList() {
+	}
+
+	//Comma separated query parameter values
+	public static List<Long> parse(List<String> values, int maxIds) {
+		List<Long> ids = new ArrayList<>();
+		for (String value : values) {
+			for (String id : value.split(",")) {
+				if (id.trim().isEmpty()) continue;
+				try {
+					ids.add(Long.valueOf(id.trim()));
+				} catch (NumberFormatException e) {
+					throw new BusinessException("40015", "Invalid id " + id);
+				}
+			}
+		}
+		return distinct(ids, maxIds);
+	}
+
+	public static List<Long> distinct(List<Long> ids, int maxIds) {
+		Set<Long> distinct = new LinkedHashSet<>();
+		for (Long id : ids) {
+			if (id == null) throw new BusinessException("40015", "Invalid id null");
+			distinct.add(id);
+		}
+		if (distinct.size() > maxIds) {
+			throw new BusinessException("40014", "Request contains " + distinct.size() + " ids, max. " + maxIds + " ids are allowed");
+		}
+		return new ArrayList<>(distinct);
+	}
+}
@@ -1,26 +1,48 @@
 package de.sn.quarkus.businessfunctions.resources;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
 import javax.transaction.Transactional;
+import javax.transaction.Transactional.TxType;
+import javax.validation.ConstraintViolation;
 import javax.validation.Valid;
 import javax.validation.Validator;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.PATCH;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.ext.Providers;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.openapi.annotations.Operation;
 import org.eclipse.microprofile.openapi.annotations.enums.ParameterIn;
 import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
@@ -30,28 +52,196 @@ import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameters;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
 import org.jboss.resteasy.annotations.jaxrs.PathParam;
 
+import de.sn.quarkus.businessfunctions.admission.Admission;
+import de.sn.quarkus.businessfunctions.binary.BinaryFormats;
+import de.sn.quarkus.businessfunctions.cache.CacheEvictor;
+import de.sn.quarkus.businessfunctions.cache.ProjectVersions;
+import de.sn.quarkus.businessfunctions.coalescing.RequestCoalescer;
+import de.sn.quarkus.businessfunctions.counter.RowCounters;
 import de.sn.quarkus.businessfunctions.exception.BusinessException;
+import de.sn.quarkus.businessfunctions.exception.ConflictException;
+import de.sn.quarkus.businessfunctions.exception.ErrorResponse;
 import de.sn.quarkus.businessfunctions.exception.ErrorsResponse;
 import de.sn.quarkus.businessfunctions.exception.RecordNotFoundException;
+import de.sn.quarkus.businessfunctions.export.ItemExporter;
 import de.sn.quarkus.businessfunctions.model.Item;
+import de.sn.quarkus.businessfunctions.model.ItemImport;
+import de.sn.quarkus.businessfunctions.model.ItemLookup;
+import de.sn.quarkus.businessfunctions.model.ItemNode;
+import de.sn.quarkus.businessfunctions.model.ItemPatch;
 import de.sn.quarkus.businessfunctions.model.Project;
+import de.sn.quarkus.businessfunctions.model.SearchHit;
+import de.sn.quarkus.businessfunctions.projection.FieldSelection;
+import de.sn.quarkus.businessfunctions.projection.ProjectionReader;
+import de.sn.quarkus.businessfunctions.search.NameSearch;
+import de.sn.quarkus.businessfunctions.search.SearchIndexer;
+import de.sn.quarkus.businessfunctions.search.SearchResult;
+import de.sn.quarkus.businessfunctions.shard.ShardContext;
+import de.sn.quarkus.businessfunctions.shard.ShardDirectory;
+import de.sn.quarkus.businessfunctions.shard.ShardTransaction;
+import de.sn.quarkus.businessfunctions.transaction.ReadOnly;
 import io.quarkus.panache.common.Page;
 
 @Tag(name= "Items") //OpenAPI
 @Path("/items")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
-@Transactional
+@Produces({MediaType.APPLICATION_JSON, BinaryFormats.APPLICATION_CBOR, BinaryFormats.APPLICATION_SMILE})
+@Consumes({MediaType.APPLICATION_JSON, BinaryFormats.APPLICATION_CBOR, BinaryFormats.APPLICATION_SMILE})
+@Transactional //Write methods, read methods run without transaction (@ReadOnly)
+@Admission //Concurrency limit per endpoint class, default: read
 public class ItemResource {
 	
+	//Item hierarchy of a project in one round trip, main items are the roots
+	private static final String TREE_QUERY = 
+			"WITH RECURSIVE tree (id, name, imageurl, level, item_id, depth) AS ("
+			+ " SELECT i.id, i.name, i.imageurl, i.level, i.item_id, 0 FROM item i"
+			+ " WHERE i.project_id = :projectid AND i.item_id IS NULL"
+			+ " UNION ALL"
+			+ " SELECT c.id, c.name, c.imageurl, c.level, c.item_id, t.depth + 1 FROM item c"
+			+ " JOIN tree t ON c.item_id = t.id WHERE t.depth < :depth)"
+			+ " SELECT id, name, imageurl, level, item_id FROM tree";
+	
+	//Sub tree of one item in one round trip
+	private static final String SUBTREE_QUERY = 
+			"WITH RECURSIVE tree (id, name, imageurl, level, item_id, depth) AS ("
+			+ " SELECT i.id, i.name, i.imageurl, i.level, i.item_id, 0 FROM item i"
+			+ " WHERE i.project_id = :projectid AND i.id = :rootid"
+			+ " UNION ALL"
+			+ " SELECT c.id, c.name, c.imageurl, c.level, c.item_id, t.depth + 1 FROM item c"
+			+ " JOIN tree t ON c.item_id = t.id WHERE t.depth < :depth)"
+			+ " SELECT id, name, imageurl, level, item_id FROM tree";
+	
 	@Inject
     EntityManager em;
 	
 	@Inject 
 	Validator validator;
+	
+	@Inject
+	ItemExporter itemExporter;
+	
+	@Inject
+	CacheEvictor cacheEvictor;
+	
+	@Inject
+	ProjectVersions projectVersions;
+	
+	@Inject
+	RowCounters rowCounters;
+	
+	@Inject
+	ProjectionReader projectionReader;
+	
+	@Inject
+	NameSearch nameSearch;
+	
+	@Inject
+	SearchIndexer searchIndexer;
+	
+	@Inject
+	RequestCoalescer requestCoalescer;
+	
+	@Inject
+	ShardDirectory shardDirectory;
+	
+	@Inject
+	ShardTransaction shardTransaction;
+	
+	@Context
+	Request request;
+	
+	@Context
+	HttpHeaders headers;
+	
+	@Context
+	Providers providers;
+	
+	@ConfigProperty(name = "bf.bulk.max-items", defaultValue = "10000")
+	int bulkMaxItems;
+	
+	@ConfigProperty(name = "quarkus.hibernate-orm.jdbc.statement-batch-size", defaultValue = "50")
+	int batchSize;
+	
+	@ConfigProperty(name = "bf.lookup.max-ids", defaultValue = "500")
+	int lookupMaxIds;
 
+	@Transactional(TxType.SUPPORTS)
+	@ReadOnly
+	@Admission(Admission.HEAVY)
+	@GET
+	@Path("/batch")
+	@Operation(summary = "Items for a set of ids with one query, in order of the ids, ids without item are reported in the body")
+	@Parameters({
+		@Parameter(name = "ids", in = ParameterIn.QUERY, required = true, 
+    			description = "item ids, comma separated (ids=1,2,3) or repeated (ids=1&ids=2), max. bf.lookup.max-ids")
+    	})
+    @APIResponse(responseCode = "200", description = "Found items and missing ids", 
+    		content = @Content(mediaType = "application/json",
+            		schema = @Schema(implementation = ItemLookup.class)))
+    @APIResponse(responseCode = "400", description = "Invalid request data",
+    content = @Content(mediaType = "application/json",
+ 	schema = @Schema(implementation = ErrorsResponse.class)))
+	public Response getItemsByIds(
+			@QueryParam("ids") @NotNull @Size(min = 1) List<String> ids) {
+		return Response
+				.ok(lookup(IdList.parse(ids, lookupMaxIds)))
+				.build();
+	}
+	
+	@Transactional(TxType.SUPPORTS)
+	@ReadOnly
+	@Admission(Admission.HEAVY)
+	@POST
+	@Path("/lookup")
+	@Operation(summary = "Items for a set of ids with one query (ids in the body), in order of the ids, ids without item are reported in the body")
+    @APIResponse(responseCode = "200", description = "Found items and missing ids", 
+    		content = @Content(mediaType = "application/json",
+            		schema = @Schema(implementation = ItemLookup.class)))
+    @APIResponse(responseCode = "400", description = "Invalid request data",
+    content = @Content(mediaType = "application/json",
+ 	schema = @Schema(implementation = ErrorsResponse.class)))
+	public Response lookupItems(@NotNull List<Long> ids) {
+		return Response
+				.ok(lookup(IdList.distinct(ids, lookupMaxIds)))
+				.build();
+	}
+	
+	//All items in one IN query (or from the caches), null entries of the ordered result are missing ids
+	private ItemLookup lookup(List<Long> ids) {
+		List<Item> items = shardDirectory.enabled() ? shardedLookup(ids) : em.unwrap(Session.class)
+				.byMultipleIds(Item.class)
+				.enableOrderedReturn(true)
+				.withBatchSize(Math.max(ids.size(), 1))
+				.multiLoad(ids);
+		ItemLookup result = new ItemLookup();
+		for (int i = 0; i < ids.size(); i++) {
+			if (items.get(i) != null) {
+				result.items.add(items.get(i));
+			} else {
+				result.missing.add(ids.get(i));
+			}
+		}
+		return result;
+	}
+	
+	//Ids grouped by shard (id range), one IN query per shard, result in order of the ids
+	private List<Item> shardedLookup(List<Long> ids) {
+		Map<Integer, List<Long>> idsByShard = ids.stream().collect(Collectors.groupingBy(shardDirectory::shardOfItem));
+		Map<Long, Item> found = new HashMap<>();
+		idsByShard.forEach((shard, shardIds) -> shardTransaction.call(shard, () -> em.unwrap(Session.class)
+				.byMultipleIds(Item.class)
+				.withBatchSize(Math.max(shardIds.size(), 1))
+				.multiLoad(shardIds))
+				.stream().filter(Objects::nonNull).forEach(item -> found.put(item.id, item)));
+		return ids.stream().map(found::get).collect(Collectors.toList());
+	}
+	
+	@Transactional(TxType.SUPPORTS)
+	@ReadOnly
+	@Admission(Admission.HEAVY)
 	@GET
 	@Path("/project/{projectid}")
 	@Operation(summary = "List of items of a certain project")
@@ -61,24 +251,101 @@ public class ItemResource {
 		@Parameter(name = "pageNum", in = ParameterIn.QUERY,required = false, 
     			description = "number of requested page, value >= 0"),
     	@Parameter(name = "pageSize", in = ParameterIn.QUERY,required = false, 
-		description = "size of page (number of records), value >= 0" )
+		description = "size of page (number of records), value >= 0" ),
+    	@Parameter(name = "after", in = ParameterIn.QUERY,required = false, 
+		description = "cursor of the last record of the previous page (header nextcursor), switches to keyset pagination" ),
+    	@Parameter(name = "limit", in = ParameterIn.QUERY,required = false, 
+		description = "size of page for keyset pagination, value >= 1, switches to keyset pagination" ),
+    	@Parameter(name = "fields", in = ParameterIn.QUERY,required = false, 
+		description = "comma separated fields of the items (id, name, imageURL, level, version, parentId, items) and of their lower items (items.id, items.name, ...)" ),
+    	@Parameter(name = "expand", in = ParameterIn.QUERY,required = false, 
+		description = "items: include lower items, without fields or expand the complete items are returned" ),
+    	@Parameter(name = "depth", in = ParameterIn.QUERY,required = false, 
+		description = "levels of included lower items, value 1 - 10, default 1" )
     	})
-    @APIResponse(responseCode = "200", description = "Total list of items for that project", 
+    @APIResponse(responseCode = "200", description = "Total list of items for that project, number of all records in header X-Total-Count, number of pages in header X-Page-Count", 
     		content = @Content(mediaType = "application/json",
             		schema = @Schema(type = SchemaType.ARRAY, implementation = Item.class)))
     public Response getPagableItemListForProject(
     		@PathParam("projectid") @NotNull Long projectid,
     		@QueryParam("pageNum") @DefaultValue("0") @Min(0) int pageNum, 
-    		@QueryParam("pageSize") @DefaultValue("10") @Min(0) int pageSize) {
+    		@QueryParam("pageSize") @DefaultValue("10") @Min(0) int pageSize,
+    		@QueryParam("after") String after,
+    		@QueryParam("limit") @Min(1) Integer limit,
+    		@QueryParam("fields") String fields,
+    		@QueryParam("expand") String expand,
+    		@QueryParam("depth") @Min(1) @Max(10) Integer depth) {
     	
-		long timestamp = System.currentTimeMillis();
-		List<Item> items = Item.findByProjectId(projectid).page(Page.of(pageNum, pageSize)).list();
+		Long version = projectVersions.current(projectid);
+		EntityTag tag = (version != null) ? ProjectVersions.negotiated(ProjectVersions.tag(projectid, version, pageNum, pageSize, after, limit, fields, expand, depth), headers) : null;
+		Response notModified = notModified(tag);
+		if (notModified != null) return notModified;
+		//Concurrent calls for the same page share one load and serialization
+		return requestCoalescer.load("items.project", tag, headers, providers,
+				() -> loadItemList(projectid, pageNum, pageSize, after, limit, fields, expand, depth, tag));
+    }
+    
+    private Response loadItemList(Long projectid, int pageNum, int pageSize, String after, Integer limit,
+    		String fields, String expand, Integer depth, EntityTag tag) {
+		//Total from the maintained counter, no count of the items
+		long total = rowCounters.countForProject(projectid);
+		FieldSelection selection = FieldSelection.parse(FieldSelection.Type.ITEM, fields, expand, depth);
+		if (selection != null) {
+			Map<String, Object> parameters = new HashMap<>();
+			parameters.put("projectid", projectid);
+			String where = "i.project.id = :projectid";
+			if (after != null) {
+				long[] key = PageCursor.decode(after, 3);
+				if (key[0] != projectid) {
+					throw new BusinessException("40010", "Invalid cursor " + after);
+				}
+				where += " and i.level >= :level and (i.level > :level or i.id > :id)";
+				parameters.put("level", (int) key[1]);
+				parameters.put("id", key[2]);
+			}
+			return sparseList(where, parameters, "i.level, i.id", projectid, pageNum, pageSize, after, limit, selection, tag, total);
+		}
+		if (after == null && limit == null) {
+			List<Item> items = Item.findByProjectId(projectid).page(Page.of(pageNum, pageSize)).list();
+	    	return Response
+	    			.ok(items)
+	    			.tag(tag)
+	    			.header("X-Total-Count", total)
+	    			.header("X-Page-Count", RowCounters.pageCount(total, pageSize))
+	    			.build();
+		}
+		
+		//Keyset pagination on (project, level, id)
+		int size = (limit != null) ? limit : Math.max(pageSize, 1);
+		Integer afterLevel = null;
+		Long afterId = null;
+		if (after != null) {
+			long[] key = PageCursor.decode(after, 3);
+			if (key[0] != projectid) {
+				throw new BusinessException("40010", "Invalid cursor " + after);
+			}
+			afterLevel = (int) key[1];
+			afterId = key[2];
+		}
+		List<Item> items = Item.findByProjectIdAfter(projectid, afterLevel, afterId).range(0, size).list();
+		String nextCursor = null;
+		if (items.size() > size) {
+			items = items.subList(0, size);
+			Item last = items.get(size - 1);
+			nextCursor = PageCursor.encode(projectid, last.level, last.id);
+		}
     	return Response
     			.ok(items)
-        		.header("responsetime", (System.currentTimeMillis() - timestamp))
+    			.tag(tag)
+    			.header("nextcursor", nextCursor)
+    			.header("X-Total-Count", total)
+    			.header("X-Page-Count", RowCounters.pageCount(total, size))
     			.build();
     }
 	
+	@Transactional(TxType.SUPPORTS)
+	@ReadOnly
+	@Admission(Admission.HEAVY)
 	@GET
 	@Path("/project/{projectid}/level/{level}")
 	@Operation(summary = "List of items of a certain project on given level, sub items will be shown in hierarchy too")
@@ -90,47 +357,390 @@ public class ItemResource {
 		@Parameter(name = "pageNum", in = ParameterIn.QUERY,required = false, 
     			description = "number of requested page, value >= 0"),
     	@Parameter(name = "pageSize", in = ParameterIn.QUERY,required = false, 
-		description = "size of page (number of records), value >= 0" )
+		description = "size of page (number of records), value >= 0" ),
+    	@Parameter(name = "after", in = ParameterIn.QUERY,required = false, 
+		description = "cursor of the last record of the previous page (header nextcursor), switches to keyset pagination" ),
+    	@Parameter(name = "limit", in = ParameterIn.QUERY,required = false, 
+		description = "size of page for keyset pagination, value >= 1, switches to keyset pagination" ),
+    	@Parameter(name = "fields", in = ParameterIn.QUERY,required = false, 
+		description = "comma separated fields of the items (id, name, imageURL, level, version, parentId, items) and of their lower items (items.id, items.name, ...)" ),
+    	@Parameter(name = "expand", in = ParameterIn.QUERY,required = false, 
+		description = "items: include lower items, without fields or expand the complete items are returned" ),
+    	@Parameter(name = "depth", in = ParameterIn.QUERY,required = false, 
+		description = "levels of included lower items, value 1 - 10, default 1" )
     	})
-	 @APIResponse(responseCode = "200", description = "List of items for that project and item level", 
+	 @APIResponse(responseCode = "200", description = "List of items for that project and item level, number of all records in header X-Total-Count, number of pages in header X-Page-Count", 
 		content = @Content(mediaType = "application/json",
      		schema = @Schema(type = SchemaType.ARRAY, implementation = Item.class)))
     public Response getPagableItemListForProjectAndLevel(
     		@PathParam("projectid") @NotNull Long projectid,
     		@PathParam("level") @NotNull Integer level,
     		@QueryParam("pageNum") @DefaultValue("0") @Min(0) int pageNum, 
-    		@QueryParam("pageSize") @DefaultValue("10") @Min(0) int pageSize) {
+    		@QueryParam("pageSize") @DefaultValue("10") @Min(0) int pageSize,
+    		@QueryParam("after") String after,
+    		@QueryParam("limit") @Min(1) Integer limit,
+    		@QueryParam("fields") String fields,
+    		@QueryParam("expand") String expand,
+    		@QueryParam("depth") @Min(1) @Max(10) Integer depth) {
     	
-		long timestamp = System.currentTimeMillis();
-		List<Item> items = Item.findByLevelAndProjectId(level, projectid).page(Page.of(pageNum, pageSize)).list();
+		Long version = projectVersions.current(projectid);
+		EntityTag tag = (version != null) ? ProjectVersions.negotiated(ProjectVersions.tag(projectid, version, "level", level, pageNum, pageSize, after, limit, fields, expand, depth), headers) : null;
+		Response notModified = notModified(tag);
+		if (notModified != null) return notModified;
+		//Total from the maintained counter, no count of the items
+		long total = rowCounters.countForProjectAndLevel(projectid, level);
+		FieldSelection selection = FieldSelection.parse(FieldSelection.Type.ITEM, fields, expand, depth);
+		if (selection != null) {
+			Map<String, Object> parameters = new HashMap<>();
+			parameters.put("projectid", projectid);
+			parameters.put("level", level);
+			String where = "i.level = :level and i.project.id = :projectid";
+			if (after != null) {
+				long[] key = PageCursor.decode(after, 3);
+				if (key[0] != projectid || key[1] != level) {
+					throw new BusinessException("40010", "Invalid cursor " + after);
+				}
+				where += " and i.id > :id";
+				parameters.put("id", key[2]);
+			}
+			return sparseList(where, parameters, "i.id", projectid, pageNum, pageSize, after, limit, selection, tag, total);
+		}
+		if (after == null && limit == null) {
+			List<Item> items = Item.findByLevelAndProjectId(level, projectid).page(Page.of(pageNum, pageSize)).list();
+	    	return Response
+	    			.ok(items)
+	    			.tag(tag)
+	    			.header("X-Total-Count", total)
+	    			.header("X-Page-Count", RowCounters.pageCount(total, pageSize))
+	    			.build();
+		}
+		
+		//Keyset pagination on (project, level, id) with fixed project and level
+		int size = (limit != null) ? limit : Math.max(pageSize, 1);
+		Long afterId = null;
+		if (after != null) {
+			long[] key = PageCursor.decode(after, 3);
+			if (key[0] != projectid || key[1] != level) {
+				throw new BusinessException("40010", "Invalid cursor " + after);
+			}
+			afterId = key[2];
+		}
+		List<Item> items = Item.findByLevelAndProjectIdAfter(level, projectid, afterId).range(0, size).list();
+		String nextCursor = null;
+		if (items.size() > size) {
+			items = items.subList(0, size);
+			nextCursor = PageCursor.encode(projectid, level, items.get(size - 1).id);
+		}
     	return Response
     			.ok(items)
-        		.header("responsetime", (System.currentTimeMillis() - timestamp))
+    			.tag(tag)
+    			.header("nextcursor", nextCursor)
+    			.header("X-Total-Count", total)
+    			.header("X-Page-Count", RowCounters.pageCount(total, size))
+    			.build();
+    }
+	
+	@Transactional(TxType.SUPPORTS)
+	@ReadOnly
+	@GET
+	@Path("/project/{projectid}/search")
+	@Operation(summary = "Items of a project whose name contains the query (case insensitive), best matches first")
+	@Parameters({
+		@Parameter(name = "projectid", in = ParameterIn.PATH,required = true, 
+    			description = "project id, value >= 0"),
+		@Parameter(name = "q", in = ParameterIn.QUERY, required = true, 
+    			description = "part of the item name"),
+		@Parameter(name = "pageNum", in = ParameterIn.QUERY,required = false, 
+    			description = "number of requested page, value >= 0"),
+    	@Parameter(name = "pageSize", in = ParameterIn.QUERY,required = false, 
+		description = "size of page (number of records), value >= 0" )
+    	})
+    @APIResponse(responseCode = "200", description = "Ranked items, number of all hits in header X-Total-Count", 
+    		content = @Content(mediaType = "application/json",
+            		schema = @Schema(type = SchemaType.ARRAY, implementation = SearchHit.class)))
+    @APIResponse(responseCode = "400", description = "Invalid request data",
+    content = @Content(mediaType = "application/json",
+ 	schema = @Schema(implementation = ErrorsResponse.class)))
+    public Response searchItemsForProject(
+    		@PathParam("projectid") @NotNull Long projectid,
+    		@QueryParam("q") @NotNull @Size(min = 1, max = 20) String query,
+    		@QueryParam("pageNum") @DefaultValue("0") @Min(0) int pageNum, 
+    		@QueryParam("pageSize") @DefaultValue("10") @Min(0) int pageSize) {
+		SearchResult result = nameSearch.search(NameSearch.Type.ITEM, projectid, query, pageNum * pageSize, pageSize);
+    	return Response
+    			.ok(result.hits)
+    			.header("X-Total-Count", result.total)
+    			.build();
+    }
+	
+	@Transactional(TxType.SUPPORTS)
+	@ReadOnly
+	@Admission(Admission.HEAVY)
+	@GET
+	@Path("/project/{projectid}/tree")
+	@Operation(summary = "Item hierarchy of a certain project (or of one item within the project), loaded with a single query")
+	@Parameters({
+		@Parameter(name = "projectid", in = ParameterIn.PATH,required = true, 
+    			description = "project id, value >= 0"),
+		@Parameter(name = "root", in = ParameterIn.QUERY,required = false, 
+    			description = "id of the item at the top of the requested hierarchy, all main items if empty"),
+    	@Parameter(name = "depth", in = ParameterIn.QUERY,required = false, 
+		description = "number of levels below the top items, value >= 0, unlimited if empty" )
+    	})
+    @APIResponse(responseCode = "200", description = "Item hierarchy for that project", 
+    		content = @Content(mediaType = "application/json",
+            		schema = @Schema(type = SchemaType.ARRAY, implementation = ItemNode.class)))
+    @APIResponse(responseCode = "404", description = "item for given root id has not been found in project")
+    public Response getItemTreeForProject(
+    		@PathParam("projectid") @NotNull Long projectid,
+    		@QueryParam("root") Long rootId,
+    		@QueryParam("depth") @Min(0) Integer depth) {
+    	
+		Long version = projectVersions.current(projectid);
+		EntityTag tag = (version != null) ? ProjectVersions.negotiated(ProjectVersions.tag(projectid, version, "tree", rootId, depth), headers) : null;
+		Response notModified = notModified(tag);
+		if (notModified != null) return notModified;
+		List<ItemNode> nodes = loadTree(projectid, rootId, (depth != null) ? depth : Integer.MAX_VALUE);
+		if (rootId != null && nodes.isEmpty()) {
+			return Response.status(Response.Status.NOT_FOUND).build();
+		}
+    	return Response
+    			.ok(ItemNode.buildTree(nodes))
+    			.tag(tag)
     			.build();
     }
 	
+	@SuppressWarnings("unchecked")
+	private List<ItemNode> loadTree(Long projectid, Long rootId, int depth) {
+		Query query = (rootId == null) 
+				? em.createNativeQuery(TREE_QUERY)
+				: em.createNativeQuery(SUBTREE_QUERY).setParameter("rootid", rootId);
+		List<Object[]> rows = query
+				.setParameter("projectid", projectid)
+				.setParameter("depth", depth)
+				.getResultList();
+		List<ItemNode> nodes = new ArrayList<>(rows.size());
+		for (Object[] row : rows) {
+			nodes.add(new ItemNode(
+					((Number) row[0]).longValue(),
+					(String) row[1],
+					(String) row[2],
+					((Number) row[3]).intValue(),
+					(row[4] != null) ? ((Number) row[4]).longValue() : null));
+		}
+		return nodes;
+	}
+	
+	//Projection of the requested fields, same paging and cursor as the full lists
+	private Response sparseList(String where, Map<String, Object> parameters, String orderBy, Long projectid,
+			int pageNum, int pageSize, String after, Integer limit, FieldSelection selection, EntityTag tag, long total) {
+		if (after == null && limit == null) {
+			return Response
+					.ok(projectionReader.items(where, parameters, orderBy, pageNum * pageSize, pageSize, selection).records)
+					.tag(tag)
+	    			.header("X-Total-Count", total)
+	    			.header("X-Page-Count", RowCounters.pageCount(total, pageSize))
+					.build();
+		}
+		int size = (limit != null) ? limit : Math.max(pageSize, 1);
+		ProjectionReader.Projection page = projectionReader.items(where, parameters, orderBy, 0, size + 1, selection);
+		List<?> records = page.records;
+		String nextCursor = null;
+		if (records.size() > size) {
+			records = records.subList(0, size);
+			long[] key = page.keys.get(size - 1);
+			nextCursor = PageCursor.encode(projectid, key[0], key[1]);
+		}
+		return Response
+				.ok(records)
+				.tag(tag)
+    			.header("nextcursor", nextCursor)
+    			.header("X-Total-Count", total)
+    			.header("X-Page-Count", RowCounters.pageCount(total, size))
+				.build();
+	}
+	
+	//Conditional request: answer 304 without loading anything, if the project version has not changed
+	private Response notModified(EntityTag tag) {
+		if (tag == null) {
+			return null;
+		}
+		Response.ResponseBuilder builder = ProjectVersions.notModified(request, tag);
+		return (builder != null) ? builder.build() : null;
+	}
+	
+	@Transactional(TxType.SUPPORTS)
+	@ReadOnly
+	@Admission(Admission.HEAVY)
+	@GET
+	@Path("/project/{projectid}/export")
+	@Produces(ItemExporter.APPLICATION_NDJSON)
+	@Operation(summary = "Export of all items of a certain project as stream, one JSON document per line")
+	@Parameters({
+		@Parameter(name = "projectid", in = ParameterIn.PATH,required = true, 
+    			description = "project id, value >= 0")
+    	})
+    @APIResponse(responseCode = "200", description = "All items for that project, one item per line", 
+    		content = @Content(mediaType = ItemExporter.APPLICATION_NDJSON,
+            		schema = @Schema(implementation = ItemNode.class)))
+    @APIResponse(responseCode = "404", description = "project for given id has not been found")
+    public Response exportItemsForProject(
+    		@PathParam("projectid") @NotNull Long projectid) {
+		
+		if (Project.count("id", projectid) == 0) {
+			return Response.status(Response.Status.NOT_FOUND).build();
+		}
+		//Items are read while the response is written, within a transaction of the exporter
+		StreamingOutput stream = output -> itemExporter.export(projectid, output);
+		return Response.ok(stream).build();
+    }
+	
+	@Transactional(TxType.SUPPORTS)
+	@ReadOnly
 	@GET
     @Path("/{id}")
     @Operation(summary = "Get item for id")
     @Parameters({
     	@Parameter(name = "id", in = ParameterIn.PATH, required = true, 
-    			description = "unique item identifier")})
+    			description = "unique item identifier"),
+    	@Parameter(name = "fields", in = ParameterIn.QUERY,required = false, 
+		description = "comma separated fields of the items (id, name, imageURL, level, version, parentId, items) and of their lower items (items.id, items.name, ...)" ),
+    	@Parameter(name = "expand", in = ParameterIn.QUERY,required = false, 
+		description = "items: include lower items, without fields or expand the complete items are returned" ),
+    	@Parameter(name = "depth", in = ParameterIn.QUERY,required = false, 
+		description = "levels of included lower items, value 1 - 10, default 1" )
+    	})
     @APIResponse(responseCode = "200", description = "item for id", 
     		content = @Content(mediaType = "application/json",
             		schema = @Schema(type = SchemaType.ARRAY, implementation = Item.class)))
 	public Response getItemById(
-    		@PathParam("id") @NotNull Long id) {
-    	long timestamp = System.currentTimeMillis();
+    		@PathParam("id") @NotNull Long id,
+    		@QueryParam("fields") String fields,
+    		@QueryParam("expand") String expand,
+    		@QueryParam("depth") @Min(1) @Max(10) Integer depth) {
+    	Object[] version = projectVersions.currentForItem(id);
+    	FieldSelection selection = FieldSelection.parse(FieldSelection.Type.ITEM, fields, expand, depth);
+    	EntityTag tag = (version == null) ? null : ProjectVersions.negotiated((selection == null)
+    			? ProjectVersions.tag((Long) version[0], (Long) version[1], "item", id)
+    			: ProjectVersions.tag((Long) version[0], (Long) version[1], "item", id, fields, expand, depth), headers);
+		Response notModified = notModified(tag);
+		if (notModified != null) return notModified;
+		if (selection != null) {
+			List<?> records = projectionReader.items("i.id = :id", Collections.singletonMap("id", id), "i.id", 0, 1, selection).records;
+			if (records.isEmpty()) {
+				return Response.status(Response.Status.NOT_FOUND).build();
+			}
+			return Response
+        			.ok(records.get(0))
+        			.tag(tag)
+        			.build();
+		}
     	Item myItem = Item.findById(id);
     	if (myItem != null) {
     	   	return Response
         			.ok(myItem)
-            		.header("responsetime", (System.currentTimeMillis() - timestamp))
+        			.tag(tag)
         			.build();
     	}
     	return Response.status(Response.Status.NOT_FOUND).build();
     }
 	
+	@Transactional(TxType.SUPPORTS)
+	@ReadOnly
+	@Admission(Admission.HEAVY)
+	@GET
+    @Path("/{id}/descendants")
+    @Operation(summary = "All lower items of an item in hierarchy (flat list, ordered by level)")
+    @Parameters({
+    	@Parameter(name = "id", in = ParameterIn.PATH, required = true, 
+    			description = "unique item identifier"),
+		@Parameter(name = "pageNum", in = ParameterIn.QUERY,required = false, 
+    			description = "number of requested page, value >= 0"),
+    	@Parameter(name = "pageSize", in = ParameterIn.QUERY,required = false, 
+		description = "size of page (number of records), value >= 0" )
+    	})
+    @APIResponse(responseCode = "200", description = "lower items of item for id", 
+    		content = @Content(mediaType = "application/json",
+            		schema = @Schema(type = SchemaType.ARRAY, implementation = ItemNode.class)))
+    @APIResponse(responseCode = "404", description = "item for given id has not been found")
+	public Response getDescendants(
+    		@PathParam("id") @NotNull Long id,
+    		@QueryParam("pageNum") @DefaultValue("0") @Min(0) int pageNum, 
+    		@QueryParam("pageSize") @DefaultValue("10") @Min(0) int pageSize) {
+    	Item myItem = Item.findById(id);
+    	if (myItem == null) {
+    		return Response.status(Response.Status.NOT_FOUND).build();
+    	}
+    	List<ItemNode> descendants = em.createQuery(
+    			"select new de.sn.quarkus.businessfunctions.model.ItemNode(i.id, i.name, i.imageURL, i.level, i.item.id)"
+    			+ " from Item i where i.path like :path order by i.level, i.id", ItemNode.class)
+    			.setParameter("path", myItem.childPath() + "%")
+    			.setFirstResult(pageNum * pageSize)
+    			.setMaxResults(pageSize)
+    			.getResultList();
+	   	return Response
+    			.ok(descendants)
+    			.build();
+    }
+	
+	@Transactional(TxType.SUPPORTS)
+	@ReadOnly
+	@GET
+    @Path("/{id}/descendants/count")
+    @Operation(summary = "Number of all lower items of an item in hierarchy (sub tree size)")
+    @Parameters({
+    	@Parameter(name = "id", in = ParameterIn.PATH, required = true, 
+    			description = "unique item identifier")})
+    @APIResponse(responseCode = "200", description = "number of lower items of item for id", 
+    		content = @Content(mediaType = "application/json",
+            		schema = @Schema(implementation = Long.class)))
+    @APIResponse(responseCode = "404", description = "item for given id has not been found")
+	public Response getDescendantCount(
+    		@PathParam("id") @NotNull Long id) {
+    	Item myItem = Item.findById(id);
+    	if (myItem == null) {
+    		return Response.status(Response.Status.NOT_FOUND).build();
+    	}
+	   	return Response
+    			.ok(Item.countDescendants(myItem))
+    			.build();
+    }
+	
+	@Transactional(TxType.SUPPORTS)
+	@ReadOnly
+	@GET
+    @Path("/{id}/ancestors")
+    @Operation(summary = "All higher items of an item in hierarchy, ordered from main item to direct higher item (breadcrumb)")
+    @Parameters({
+    	@Parameter(name = "id", in = ParameterIn.PATH, required = true, 
+    			description = "unique item identifier")})
+    @APIResponse(responseCode = "200", description = "higher items of item for id", 
+    		content = @Content(mediaType = "application/json",
+            		schema = @Schema(type = SchemaType.ARRAY, implementation = ItemNode.class)))
+    @APIResponse(responseCode = "404", description = "item for given id has not been found")
+	public Response getAncestors(
+    		@PathParam("id") @NotNull Long id) {
+    	Item myItem = Item.findById(id);
+    	if (myItem == null) {
+    		return Response.status(Response.Status.NOT_FOUND).build();
+    	}
+    	List<Long> ancestorIds = myItem.ancestorIds();
+    	List<ItemNode> ancestors = new ArrayList<>();
+    	if (!ancestorIds.isEmpty()) {
+    		ancestors = em.createQuery(
+	    			"select new de.sn.quarkus.businessfunctions.model.ItemNode(i.id, i.name, i.imageURL, i.level, i.item.id)"
+	    			+ " from Item i where i.id in :ids", ItemNode.class)
+	    			.setParameter("ids", ancestorIds)
+	    			.getResultList();
+    		//Order of the path
+    		ancestors.sort((a, b) -> Integer.compare(ancestorIds.indexOf(a.id), ancestorIds.indexOf(b.id)));
+    	}
+	   	return Response
+    			.ok(ancestors)
+    			.build();
+    }
+	
+	@Admission(Admission.WRITE)
 	@POST
 	@Path("/project/{projectid}")
     @Operation(summary = "Create new main item for given project")
@@ -147,29 +757,43 @@ public class ItemResource {
 			@PathParam("projectid") @NotNull Long projectid,
 			@Valid Item item) throws Exception{
 		
-			Project project = Project.findById(projectid);
-			if (project == null) {	
-				throw new RecordNotFoundException("Project with id " + projectid +" does not exist");
-			}
-			item.id = null;
-			item.project = project;
-			Item itemAbove = null;
-			if (item.item != null) {
-				itemAbove = Item.findById(item.item.id);
-				if (itemAbove == null) {
-					throw new RecordNotFoundException("Item with id " + item.item.id +" does not exist");
-				}
-				item.item = itemAbove;
-			}
-			Item storedItem = em.merge(item);
-			project.items.add(storedItem);
-			project.persist();
-			if (itemAbove !=null) {
-				itemAbove.items.add(storedItem);
-				itemAbove.persist();
-			}
+			Item storedItem = insert(projectid, (item.item != null) ? item.item.id : null, item);
 			return Response.status(Response.Status.CREATED).entity(storedItem).build();		
 	}
+	
+	//New item is written with its foreign keys only, project, higher item and their item lists are not loaded
+	private Item insert(Long projectid, Long itemAboveId, Item item) {
+		if (projectVersions.current(projectid) == null) {
+			throw new RecordNotFoundException("Project with id " + projectid +" does not exist");
+		}
+		item.id = null;
+		item.project = em.getReference(Project.class, projectid);
+		item.item = null;
+		item.path = "/";
+		if (itemAboveId != null) {
+			List<String> paths = em.createQuery("select i.path from Item i where i.id = :id", String.class)
+					.setParameter("id", itemAboveId)
+					.getResultList();
+			if (paths.isEmpty()) {
+				throw new RecordNotFoundException("Item with id " + itemAboveId +" does not exist");
+			}
+			item.item = em.getReference(Item.class, itemAboveId);
+			item.path = Item.childPath(paths.get(0), itemAboveId);
+		}
+		item.items = new ArrayList<>();
+		em.persist(item);
+		//Item lists are not changed here, cached lists must be reloaded
+		cacheEvictor.evictProjectItems(projectid);
+		if (itemAboveId != null) {
+			cacheEvictor.evictSubItems(itemAboveId);
+		}
+		projectVersions.increment(projectid);
+		rowCounters.itemAdded(projectid, item.level);
+		searchIndexer.indexItem(item.id, projectid, item.name);
+		return item;
+	}
+	
+	@Admission(Admission.WRITE)
 	@POST
 	@Path("/project/{projectid}/item/{itemabove}")
     @Operation(summary = "Create sub item for given project and existing item")
@@ -187,25 +811,138 @@ public class ItemResource {
 			@PathParam("itemabove") @NotNull Long itemAboveId,
 			@Valid Item item) throws Exception{
 		
-			Project project = Project.findById(projectid);
-			if (project == null) {	
-				throw new RecordNotFoundException("Project with id " + projectid +" does not exist");
-			}
-			
-			Item itemAbove = Item.findById(itemAboveId);
-			if (itemAbove == null) {
-				throw new RecordNotFoundException("Item with id " + item.item.id +" does not exist");
-			}
-			item.id = null;
-			item.item = itemAbove; //Addmain item			
-			item.project = project; //Add item to project
-			Item storedItem = em.merge(item);
-
+			Item storedItem = insert(projectid, itemAboveId, item);
 			return Response.status(Response.Status.CREATED)
 					.entity(storedItem)
 					.build();		
 	}
 	
+	@Admission(Admission.HEAVY)
+	@POST
+	@Path("/project/{projectid}/bulk")
+    @Operation(summary = "Create many items for given project in one transaction, higher items can be referenced within the import (parentRef) or by id (parentId)")
+    @APIResponse(responseCode = "201", description = "Created items in order of the import",
+                 content = @Content(mediaType = "application/json",
+                 	schema = @Schema(type = SchemaType.ARRAY, implementation = ItemNode.class)))
+    @APIResponse(responseCode = "400", description = "Invalid request data, errors of all items",
+    content = @Content(mediaType = "application/json",
+ 	schema = @Schema(implementation = ErrorsResponse.class)))
+    @APIResponse(responseCode = "500", description = "Unknown error", 
+	content = @Content(mediaType = "application/json",
+    		schema = @Schema(implementation = String.class)))    
+	public Response addItems(
+			@PathParam("projectid") @NotNull Long projectid,
+			@NotNull List<ItemImport> items) throws Exception{
+		
+		if (items.size() > bulkMaxItems) {
+			throw new BusinessException("40011", "Import contains " + items.size() + " items, max. " + bulkMaxItems + " items are allowed");
+		}
+		if (Project.count("id", projectid) == 0) {	
+			throw new RecordNotFoundException("Project with id " + projectid +" does not exist");
+		}
+		
+		//Existing higher items of the project, read with one query
+		Set<Long> parentIds = new HashSet<>();
+		for (ItemImport row : items) {
+			if (row != null && row.parentId != null) parentIds.add(row.parentId);
+		}
+		Map<Long, String> parentPaths = new HashMap<>();
+		if (!parentIds.isEmpty()) {
+			List<Object[]> parents = em.createQuery(
+					"select i.id, i.path from Item i where i.id in :ids and i.project.id = :projectid", Object[].class)
+					.setParameter("ids", parentIds)
+					.setParameter("projectid", projectid)
+					.getResultList();
+			for (Object[] parent : parents) {
+				parentPaths.put((Long) parent[0], (String) parent[1]);
+			}
+		}
+		
+		//Validate all items before anything is written
+		ErrorsResponse errors = new ErrorsResponse();
+		Set<String> refs = new HashSet<>();
+		for (int i = 0; i < items.size(); i++) {
+			ItemImport row = items.get(i);
+			String parameter = "addItems.items[" + i + "]";
+			if (row == null) {
+				errors.getErrorList().add(new ErrorResponse("400001", "item cannot be empty", parameter, "", null));
+				continue;
+			}
+			for (ConstraintViolation<ItemImport> violation : validator.validate(row)) {
+				errors.getErrorList().add(new ErrorResponse(
+						"400001", 
+						violation.getMessage(), 
+						parameter + "." + violation.getPropertyPath(), 
+						(violation.getInvalidValue() != null) ? violation.getInvalidValue().toString() : "", 
+						null));
+			}
+			if (row.parentRef != null && row.parentId != null) {
+				errors.getErrorList().add(new ErrorResponse("40012", "Either parentRef or parentId can be given", 
+						parameter + ".parentRef", row.parentRef, null));
+			} else if (row.parentRef != null && !refs.contains(row.parentRef)) {
+				errors.getErrorList().add(new ErrorResponse("40012", "Item reference " + row.parentRef + " is not contained before in import", 
+						parameter + ".parentRef", row.parentRef, null));
+			} else if (row.parentId != null && !parentPaths.containsKey(row.parentId)) {
+				errors.getErrorList().add(new ErrorResponse("40005", "Item with id " + row.parentId + " does not exist", 
+						parameter + ".parentId", row.parentId.toString(), null));
+			}
+			if (row.ref != null && !refs.add(row.ref)) {
+				errors.getErrorList().add(new ErrorResponse("40012", "Item reference " + row.ref + " is not unique", 
+						parameter + ".ref", row.ref, null));
+			}
+		}
+		if (!errors.getErrorList().isEmpty()) {
+			return Response.status(Response.Status.BAD_REQUEST).entity(errors).build();
+		}
+		
+		//Inserts are sent in JDBC batches, ids are taken from the pooled sequence block.
+		//Persistence context is cleared after each batch, entities are referenced by id only.
+		Map<String, Long> idsByRef = new HashMap<>();
+		Map<String, String> pathsByRef = new HashMap<>();
+		List<ItemNode> storedItems = new ArrayList<>(items.size());
+		Map<Integer, Long> countByLevel = new HashMap<>();
+		for (int i = 0; i < items.size(); i++) {
+			ItemImport row = items.get(i);
+			Item item = new Item();
+			item.name = row.name;
+			item.imageURL = row.imageURL;
+			item.level = row.level;
+			item.project = em.getReference(Project.class, projectid);
+			Long parentId = null;
+			if (row.parentRef != null) {
+				parentId = idsByRef.get(row.parentRef);
+				item.path = pathsByRef.get(row.parentRef);
+			} else if (row.parentId != null) {
+				parentId = row.parentId;
+				item.path = Item.childPath(parentPaths.get(parentId), parentId);
+			} else {
+				item.path = "/";
+			}
+			if (parentId != null) {
+				item.item = em.getReference(Item.class, parentId);
+			}
+			em.persist(item);
+			if (row.ref != null) {
+				idsByRef.put(row.ref, item.id);
+				pathsByRef.put(row.ref, item.childPath());
+			}
+			storedItems.add(new ItemNode(item.id, item.name, item.imageURL, item.level, parentId));
+			countByLevel.merge(item.level, 1L, Long::sum);
+			if ((i + 1) % batchSize == 0) {
+				em.flush();
+				em.clear();
+			}
+		}
+		//Item lists are not changed here, cached lists must be reloaded
+		cacheEvictor.evictProjectItems(projectid);
+		parentIds.forEach(cacheEvictor::evictSubItems);
+		projectVersions.increment(projectid);
+		rowCounters.itemsAdded(projectid, countByLevel);
+		searchIndexer.indexItems(projectid, storedItems);
+		return Response.status(Response.Status.CREATED).entity(storedItems).build();
+	}
+	
+	@Admission(Admission.WRITE)
 	@PUT
     @Operation(summary = "Update item attributes (update of item attributes only, no update of project or other items in hierarchy too")
     @APIResponse(responseCode = "201", description = "updated item",
@@ -218,24 +955,182 @@ public class ItemResource {
 	content = @Content(mediaType = "application/json",
     		schema = @Schema(implementation = String.class)))    
 	public Response change(Item item) {
+		//Id in the body: shard is selected before the first statement
+		ShardContext.set(shardDirectory.shardOfItem(item.id));
 		Item myItem  = Item.findById(item.id);
     	if (myItem != null) {
+    		Integer oldLevel = myItem.level;
     		myItem.name = item.name;
     		myItem.imageURL = item.imageURL;
     		myItem.level = item.level;
+    		//Hierarchy is not changed here, materialized path stays valid
     		Item storedItem = em.merge(myItem);
+    		if (myItem.project != null) {
+    			projectVersions.increment(myItem.project.id);
+    			if (oldLevel != null && myItem.level != null && !oldLevel.equals(myItem.level)) {
+    				rowCounters.itemRemoved(myItem.project.id, oldLevel);
+    				rowCounters.itemAdded(myItem.project.id, myItem.level);
+    			}
+    		}
+    		searchIndexer.indexItem(myItem.id, (myItem.project != null) ? myItem.project.id : null, myItem.name);
     		return Response.status(Response.Status.OK).entity(storedItem).build();
     	}else {
     		return Response.status(Response.Status.NOT_FOUND).build();
     	}
 	}
 	
+	@Admission(Admission.WRITE)
+	@PATCH
+	@Path("/{id}")
+    @Operation(summary = "Partial update of item attributes with one statement, optimistic locking on the item version (no update of project or other items in hierarchy)")
+    @Parameters({
+    	@Parameter(name = "id", in = ParameterIn.PATH, required = true, 
+    			description = "unique item identifier"),
+    	@Parameter(name = "If-Match", in = ParameterIn.HEADER, required = false, 
+    			description = "optional: strong entity tag of the item (GET /items/{id}), weak tags are rejected")})
+    @APIResponse(responseCode = "200", description = "updated item without lower items",
+                 content = @Content(mediaType = "application/json",
+                 	schema = @Schema(implementation = Item.class)))
+    @APIResponse(responseCode = "400", description = "Invalid request data",
+    content = @Content(mediaType = "application/json",
+ 	schema = @Schema(implementation = ErrorsResponse.class)))
+    @APIResponse(responseCode = "404", description = "item for given id has not been found")
+    @APIResponse(responseCode = "409", description = "item has been changed since the given version",
+    content = @Content(mediaType = "application/json",
+ 	schema = @Schema(implementation = ErrorsResponse.class)))
+    @APIResponse(responseCode = "412", description = "If-Match does not match the current entity tag of the item")
+    @APIResponse(responseCode = "500", description = "Unknown error", 
+	content = @Content(mediaType = "application/json",
+    		schema = @Schema(implementation = String.class)))    
+	@SuppressWarnings("unchecked")
+	public Response patch(@PathParam("id") @NotNull Long id,
+			@HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+			@Valid @NotNull ItemPatch patch) {
+		StringBuilder set = new StringBuilder();
+		Map<String, Object> parameters = new HashMap<>();
+		if (patch.name != null) {
+			set.append("name = :name, ");
+			parameters.put("name", patch.name);
+		}
+		if (patch.imageURL != null) {
+			set.append("imageurl = :imageurl, ");
+			parameters.put("imageurl", patch.imageURL);
+		}
+		if (patch.level != null) {
+			set.append("level = :level, ");
+			parameters.put("level", patch.level);
+		}
+		if (parameters.isEmpty()) {
+			throw new BusinessException("40018", "Patch contains no attribute to change");
+		}
+		if (ifMatch != null) {
+			Object[] version = projectVersions.currentForItem(id);
+			if (version != null && !ProjectVersions.matches(ifMatch, ProjectVersions.tag((Long) version[0], (Long) version[1], "item", id))) {
+				return Response.status(Response.Status.PRECONDITION_FAILED).build();
+			}
+		}
+		//One statement: update and version check, the level before the update is read from the joined row
+		Query update = em.createNativeQuery("UPDATE item i SET " + set + "version = i.version + 1 FROM item o"
+				+ " WHERE o.id = i.id AND i.id = :id AND i.version = :version"
+				+ " RETURNING i.project_id, o.level, i.level, i.name, i.imageurl, i.version")
+				.setParameter("id", id)
+				.setParameter("version", patch.version);
+		parameters.forEach(update::setParameter);
+		List<Object[]> rows = update.getResultList();
+		if (rows.isEmpty()) {
+			if (Item.count("id", id) == 0) {
+				return Response.status(Response.Status.NOT_FOUND).build();
+			}
+			throw new ConflictException("Item with id " + id + " has been changed since version " + patch.version);
+		}
+		
+		Object[] row = rows.get(0);
+		Long projectid = (row[0] != null) ? ((Number) row[0]).longValue() : null;
+		Integer oldLevel = ((Number) row[1]).intValue();
+		Item item = new Item();
+		item.id = id;
+		item.level = ((Number) row[2]).intValue();
+		item.name = (String) row[3];
+		item.imageURL = (String) row[4];
+		item.version = ((Number) row[5]).longValue();
+		//Native update: cached item and, if the level has changed, cached level lists are not valid anymore
+		cacheEvictor.evictItem(id);
+		if (!oldLevel.equals(item.level)) {
+			cacheEvictor.evictQueryResults();
+		}
+		if (projectid != null) {
+			projectVersions.increment(projectid);
+			if (!oldLevel.equals(item.level)) {
+				rowCounters.itemRemoved(projectid, oldLevel);
+				rowCounters.itemAdded(projectid, item.level);
+			}
+		}
+		if (patch.name != null) {
+			searchIndexer.indexItem(id, projectid, item.name);
+		}
+		return Response.status(Response.Status.OK).entity(item).build();
+	}
+	
+	//Item and all lower items with set based statements, no entity is loaded
+	private Response deleteSubTree(Long id) {
+		List<Object[]> keys = em.createQuery(
+				"select i.path, p.id, h.id from Item i left join i.project p left join i.item h where i.id = :id", Object[].class)
+				.setParameter("id", id)
+				.getResultList();
+		if (keys.isEmpty()) {
+			return Response.status(Response.Status.NOT_FOUND).build();
+		}
+		String prefix = Item.childPath((String) keys.get(0)[0], id) + "%";
+		Long projectid = (Long) keys.get(0)[1];
+		Long itemAboveId = (Long) keys.get(0)[2];
+		
+		//One statement: foreign keys between the deleted items are checked at its end,
+		//the returned rows are exactly the deleted items, also if a lower item has been added meanwhile
+		List<Object[]> deleted = em.createNativeQuery(
+				"DELETE FROM item WHERE id = :id OR path LIKE :prefix RETURNING id, level")
+				.setParameter("id", id)
+				.setParameter("prefix", prefix)
+				.unwrap(NativeQuery.class)
+				.addSynchronizedQuerySpace("item")
+				.getResultList();
+		if (deleted.isEmpty()) {
+			return Response.status(Response.Status.NOT_FOUND).build();
+		}
+		
+		//Ids for the search index and the cache, items per level for the counters
+		List<Long> ids = new ArrayList<>(deleted.size());
+		Map<Integer, Long> countByLevel = new HashMap<>();
+		for (Object[] row : deleted) {
+			Long deletedId = ((Number) row[0]).longValue();
+			ids.add(deletedId);
+			countByLevel.merge(((Number) row[1]).intValue(), 1L, Long::sum);
+			cacheEvictor.evictItem(deletedId);
+			cacheEvictor.evictSubItems(deletedId);
+		}
+		if (itemAboveId != null) {
+			cacheEvictor.evictSubItems(itemAboveId);
+		}
+		cacheEvictor.evictQueryResults();
+		if (projectid != null) {
+			cacheEvictor.evictProjectItems(projectid);
+			projectVersions.increment(projectid);
+			rowCounters.itemsRemoved(projectid, countByLevel);
+		}
+		searchIndexer.removeItems(ids);
+		return Response
+        		.status(Response.Status.NO_CONTENT)
+        		.build();
+	}
+	
+	@Admission(Admission.WRITE)
 	@DELETE
     @Path("/{id}")
-    @Operation(summary = "delete item (deletion of items only, if no sub items contained. Sub items must be deleted before")
+    @Operation(summary = "delete item (deletion of items only, if no sub items contained. Sub items must be deleted before, or the whole sub tree is deleted with cascade=true")
     @Parameters({
     	@Parameter(name = "id", in = ParameterIn.PATH, required = true, 
-    			description = "unique item identifier")})
+    			description = "unique item identifier"),
+    	@Parameter(name = "cascade", in = ParameterIn.QUERY, required = false, 
+    			description = "true: delete item with all lower items by set based statements, default false")})
     @APIResponse(responseCode = "204", description = "item for given id has been deleted")
     @APIResponse(responseCode = "400", description = "Invalid request data",
     content = @Content(mediaType = "application/json",
@@ -243,27 +1138,43 @@ public class ItemResource {
     @APIResponse(responseCode = "500", description = "Unknown error", 
 	content = @Content(mediaType = "application/json",
     		schema = @Schema(implementation = String.class)))    
-	public Response delete(@PathParam("id") Long id) throws Exception{
-    	Item item  = Item.findById(id);
-    	if (item == null) {
+	public Response delete(@PathParam("id") Long id,
+			@QueryParam("cascade") @DefaultValue("false") boolean cascade) throws Exception{
+		if (cascade) {
+			return deleteSubTree(id);
+		}
+		//Keys only, the item and the item lists of project and higher item are not loaded
+		List<Object[]> keys = em.createQuery(
+				"select p.id, h.id, i.level from Item i left join i.project p left join i.item h where i.id = :id", Object[].class)
+				.setParameter("id", id)
+				.getResultList();
+    	if (keys.isEmpty()) {
     		return Response.status(Response.Status.NOT_FOUND).build();
     	}
+    	Long projectid = (Long) keys.get(0)[0];
+    	Long itemAboveId = (Long) keys.get(0)[1];
     	
-    	if (item.items.size() > 0) {
+    	//Only items without sub items can be deleted, no other materialized path is affected
+    	if (Item.existsByItemId(id)) {
     		throw new BusinessException("40009", "Item contains sub items, which have to be deleted before!");
     	}    		
 
-    	//Delete item from project
-		item.project.items.remove(item);
-
-		//Delete item from main items item list
-		if (item.item != null) {
-			if (item.item.items.size() > 0) {
-				item.item.items.remove(item);
-			}
+		em.createNativeQuery("DELETE FROM item WHERE id = :id")
+				.setParameter("id", id)
+				.unwrap(NativeQuery.class)
+				.addSynchronizedQuerySpace("item")
+				.executeUpdate();
+		//Item lists are not changed here, cached lists must be reloaded
+		cacheEvictor.evictItem(id);
+		if (itemAboveId != null) {
+			cacheEvictor.evictSubItems(itemAboveId);
 		}
-		
-		item.delete();
+		if (projectid != null) {
+			cacheEvictor.evictProjectItems(projectid);
+			projectVersions.increment(projectid);
+			rowCounters.itemRemoved(projectid, (Integer) keys.get(0)[2]);
+		}
+		searchIndexer.removeItem(id);
 		
     	return Response
         		.status(Response.Status.NO_CONTENT)
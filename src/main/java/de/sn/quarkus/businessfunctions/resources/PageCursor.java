@@ -0,0 +1,44 @@
+package de.sn.quarkus.businessfunctions.resources;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import de.sn.quarkus.businessfunctions.exception.BusinessException;
+
+/**
+ * Opaque cursor for keyset pagination. The cursor carries the sort key of the last
+ * record of a page, the next page is read with a seek on that key instead of an offset.
+ */
+public final class PageCursor {
+
+	private PageCursor() {
+	}
+
+	//Encode sort key values of the last record of a page
+	public static String encode(long... keys) {
+		StringBuilder value = new StringBuilder();
+		for (int i = 0; i < keys.length; i++) {
+			if (i > 0) value.append(':');
+			value.append(keys[i]);
+		}
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(value.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	//Decode cursor, number of key values must match the sort key of the list
+	public static long[] decode(String cursor, int keyCount) {
+		try {
+			String[] values = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+			if (values.length != keyCount) {
+				throw new BusinessException("40010", "Invalid cursor " + cursor);
+			}
+			long[] keys = new long[keyCount];
+			for (int i = 0; i < keyCount; i++) {
+				keys[i] = Long.parseLong(values[i]);
+			}
+			return keys;
+		} catch (IllegalArgumentException e) {
+			throw new BusinessException("40010", "Invalid cursor " + cursor);
+		}
+	}
+}
@@ -1,26 +1,44 @@
 package de.sn.quarkus.businessfunctions.resources;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
 import javax.inject.Inject;
 import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
 import javax.transaction.Transactional;
+import javax.transaction.Transactional.TxType;
 import javax.validation.Valid;
 import javax.validation.Validator;
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.PATCH;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Providers;
 
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.eclipse.microprofile.metrics.MetricUnits;
 import org.eclipse.microprofile.metrics.annotation.Timed;
 import org.eclipse.microprofile.openapi.annotations.Operation;
@@ -32,24 +50,65 @@ import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameters;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.hibernate.Session;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.query.NativeQuery;
 import org.jboss.resteasy.annotations.jaxrs.PathParam;
 
+import de.sn.quarkus.businessfunctions.admission.Admission;
+import de.sn.quarkus.businessfunctions.binary.BinaryFormats;
+import de.sn.quarkus.businessfunctions.cache.CacheEvictor;
+import de.sn.quarkus.businessfunctions.cache.ProjectVersions;
+import de.sn.quarkus.businessfunctions.coalescing.RequestCoalescer;
+import de.sn.quarkus.businessfunctions.counter.RowCounters;
 import de.sn.quarkus.businessfunctions.exception.BusinessException;
+import de.sn.quarkus.businessfunctions.exception.ConflictException;
 import de.sn.quarkus.businessfunctions.exception.ErrorsResponse;
-import de.sn.quarkus.businessfunctions.model.Item;
 import de.sn.quarkus.businessfunctions.model.Project;
+import de.sn.quarkus.businessfunctions.model.ProjectLookup;
+import de.sn.quarkus.businessfunctions.model.ProjectPatch;
+import de.sn.quarkus.businessfunctions.model.SearchHit;
+import de.sn.quarkus.businessfunctions.projection.FieldSelection;
+import de.sn.quarkus.businessfunctions.projection.ProjectionReader;
+import de.sn.quarkus.businessfunctions.search.NameSearch;
+import de.sn.quarkus.businessfunctions.search.SearchIndexer;
+import de.sn.quarkus.businessfunctions.search.SearchResult;
+import de.sn.quarkus.businessfunctions.shard.ShardContext;
+import de.sn.quarkus.businessfunctions.shard.ShardDirectory;
+import de.sn.quarkus.businessfunctions.shard.ShardExecutor;
+import de.sn.quarkus.businessfunctions.shard.ShardTransaction;
+import de.sn.quarkus.businessfunctions.shard.ShardedPage;
+import de.sn.quarkus.businessfunctions.transaction.ReadOnly;
 import io.quarkus.panache.common.Page;
 
 @Tag(name= "Projects") //OpenAPI
 @Path("/projects")
-@Produces(MediaType.APPLICATION_JSON)
-@Consumes(MediaType.APPLICATION_JSON)
-@Transactional
+@Produces({MediaType.APPLICATION_JSON, BinaryFormats.APPLICATION_CBOR, BinaryFormats.APPLICATION_SMILE})
+@Consumes({MediaType.APPLICATION_JSON, BinaryFormats.APPLICATION_CBOR, BinaryFormats.APPLICATION_SMILE})
+@Transactional //Write methods, read methods run without transaction (@ReadOnly)
+@Admission //Concurrency limit per endpoint class, default: read
 public class ProjectResource {
 	
 	@Inject EntityManager em;
 	@Inject Validator validator;
+	@Inject ProjectVersions projectVersions;
+	@Inject CacheEvictor cacheEvictor;
+	@Inject RowCounters rowCounters;
+	@Inject ProjectionReader projectionReader;
+	@Inject NameSearch nameSearch;
+	@Inject SearchIndexer searchIndexer;
+	@Inject RequestCoalescer requestCoalescer;
+	@Inject ShardDirectory shardDirectory;
+	@Inject ShardExecutor shardExecutor;
+	@Inject ShardTransaction shardTransaction;
+	@Context Request request;
+	@Context HttpHeaders headers;
+	@Context Providers providers;
+	@ConfigProperty(name = "bf.lookup.max-ids", defaultValue = "500") int lookupMaxIds;
 
+	@Transactional(TxType.SUPPORTS)
+	@ReadOnly
+	@Admission(Admission.HEAVY)
 	@GET
 	//OpenAPI
     @Operation(summary = "List of projects and their contained items")
@@ -57,9 +116,19 @@ public class ProjectResource {
     	@Parameter(name = "pageNum", in = ParameterIn.QUERY,required = false, 
     			description = "number of requested page, value >= 0"),
     	@Parameter(name = "pageSize", in = ParameterIn.QUERY,required = false, 
-		description = "size of page (number of records), value >= 0" )
+		description = "size of page (number of records), value >= 0" ),
+    	@Parameter(name = "after", in = ParameterIn.QUERY,required = false, 
+		description = "cursor of the last record of the previous page (header nextcursor), switches to keyset pagination" ),
+    	@Parameter(name = "limit", in = ParameterIn.QUERY,required = false, 
+		description = "size of page for keyset pagination, value >= 1, switches to keyset pagination" ),
+    	@Parameter(name = "fields", in = ParameterIn.QUERY,required = false, 
+		description = "comma separated fields of the projects (id, name, items) and of their items (items.id, items.name, ...)" ),
+    	@Parameter(name = "expand", in = ParameterIn.QUERY,required = false, 
+		description = "items: include items, without fields or expand the complete projects are returned" ),
+    	@Parameter(name = "depth", in = ParameterIn.QUERY,required = false, 
+		description = "levels of included items (1 = main items only), value 1 - 10, default 1" )
     	})
-    @APIResponse(responseCode = "200", description = "List of projects", 
+    @APIResponse(responseCode = "200", description = "List of projects, number of all records in header X-Total-Count, number of pages in header X-Page-Count", 
     		content = @Content(mediaType = "application/json",
             		schema = @Schema(type = SchemaType.ARRAY, implementation = Project.class)))
 	@Timed(name = "ListTimer", 
@@ -67,23 +136,230 @@ public class ProjectResource {
 		unit = MetricUnits.MILLISECONDS)
 	public Response getPagableList( 
     		@QueryParam("pageNum") @DefaultValue("0") @Min(0) int pageNum, 
-    		@QueryParam("pageSize") @DefaultValue("10") @Min(0) int pageSize) {
+    		@QueryParam("pageSize") @DefaultValue("10") @Min(0) int pageSize,
+    		@QueryParam("after") String after,
+    		@QueryParam("limit") @Min(1) Integer limit,
+    		@QueryParam("fields") String fields,
+    		@QueryParam("expand") String expand,
+    		@QueryParam("depth") @Min(1) @Max(10) Integer depth) {
     	
-		long timestamp = System.currentTimeMillis();
-		List<Project> projects = Project
-    			.findAll().page(Page.of(pageNum, pageSize)).list();
+		FieldSelection selection = FieldSelection.parse(FieldSelection.Type.PROJECT, fields, expand, depth);
+		if (shardDirectory.enabled()) {
+			return getShardedList(pageNum, pageSize, after, limit, selection);
+		}
+		//Total from the maintained counter (or table statistics in estimated mode), no count of the projects
+		long total = rowCounters.countProjects();
+		if (selection != null) {
+			return getSparseList(pageNum, pageSize, after, limit, selection, total);
+		}
+		if (after == null && limit == null) {
+			List<Project> projects = Project
+	    			.findAllCached().page(Page.of(pageNum, pageSize)).list();
+	    	return Response
+	    			.ok(projects)
+	    			.header("X-Total-Count", total)
+	    			.header("X-Page-Count", RowCounters.pageCount(total, pageSize))
+	    			.build();
+		}
+		
+		//Keyset pagination on id
+		int size = (limit != null) ? limit : Math.max(pageSize, 1);
+		Long afterId = (after != null) ? PageCursor.decode(after, 1)[0] : null;
+		List<Project> projects = Project.findAllAfter(afterId).range(0, size).list();
+		String nextCursor = null;
+		if (projects.size() > size) {
+			projects = projects.subList(0, size);
+			nextCursor = PageCursor.encode(projects.get(size - 1).id);
+		}
     	return Response
     			.ok(projects)
-        		.header("responsetime", (System.currentTimeMillis() - timestamp))
+    			.header("nextcursor", nextCursor)
+    			.header("X-Total-Count", total)
+    			.header("X-Page-Count", RowCounters.pageCount(total, size))
+    			.build();
+    }
+	
+	//Projection of the requested fields, same paging as the full list
+	private Response getSparseList(int pageNum, int pageSize, String after, Integer limit, FieldSelection selection, long total) {
+		if (after == null && limit == null) {
+			return Response
+					.ok(projectionReader.projects(null, Collections.emptyMap(), pageNum * pageSize, pageSize, selection).records)
+	    			.header("X-Total-Count", total)
+	    			.header("X-Page-Count", RowCounters.pageCount(total, pageSize))
+					.build();
+		}
+		int size = (limit != null) ? limit : Math.max(pageSize, 1);
+		Long afterId = (after != null) ? PageCursor.decode(after, 1)[0] : null;
+		ProjectionReader.Projection page = (afterId == null)
+				? projectionReader.projects(null, Collections.emptyMap(), 0, size + 1, selection)
+				: projectionReader.projects("p.id > :after", Collections.singletonMap("after", afterId), 0, size + 1, selection);
+		List<?> records = page.records;
+		String nextCursor = null;
+		if (records.size() > size) {
+			records = records.subList(0, size);
+			nextCursor = PageCursor.encode(page.keys.get(size - 1)[0]);
+		}
+		return Response
+				.ok(records)
+    			.header("nextcursor", nextCursor)
+    			.header("X-Total-Count", total)
+    			.header("X-Page-Count", RowCounters.pageCount(total, size))
+				.build();
+	}
+	
+	//Scatter-gather: every shard returns its first projects (records) in id order up to the end of the page, merged by id
+	private Response getShardedList(int pageNum, int pageSize, String after, Integer limit, FieldSelection selection) {
+		long total = shardExecutor.gather(() -> Collections.singletonList(rowCounters.countProjects()))
+				.stream().mapToLong(Long::longValue).sum();
+		boolean keyset = after != null || limit != null;
+		int size = keyset ? ((limit != null) ? limit : Math.max(pageSize, 1)) : pageSize;
+		int first = keyset ? 0 : pageNum * pageSize;
+		Long afterId = (after != null) ? PageCursor.decode(after, 1)[0] : null;
+		int max = first + size + 1;
+		ShardedPage page = ShardedPage.merge(shardExecutor.gather(() -> shardPage(afterId, max, selection)), first, size, keyset);
+		return Response
+				.ok(page.records)
+    			.header("nextcursor", page.nextCursor)
+    			.header("X-Total-Count", total)
+    			.header("X-Page-Count", RowCounters.pageCount(total, size))
+				.build();
+	}
+	
+	//Page of one shard as (id, project or projection)
+	private List<Object[]> shardPage(Long afterId, int max, FieldSelection selection) {
+		List<Object[]> rows = new ArrayList<>();
+		if (selection != null) {
+			ProjectionReader.Projection page = (afterId == null)
+					? projectionReader.projects(null, Collections.emptyMap(), 0, max, selection)
+					: projectionReader.projects("p.id > :after", Collections.singletonMap("after", afterId), 0, max, selection);
+			for (int i = 0; i < page.records.size(); i++) {
+				rows.add(new Object[] {page.keys.get(i)[0], page.records.get(i)});
+			}
+			return rows;
+		}
+		for (Project project : Project.findAllAfter(afterId).range(0, max - 1).list()) {
+			rows.add(new Object[] {project.id, project});
+		}
+		return rows;
+	}
+	
+	@Transactional(TxType.SUPPORTS)
+	@ReadOnly
+	@Admission(Admission.HEAVY)
+	@GET
+	@Path("/batch")
+	@Operation(summary = "Projects for a set of ids with one query, in order of the ids, ids without project are reported in the body")
+	@Parameters({
+		@Parameter(name = "ids", in = ParameterIn.QUERY, required = true, 
+    			description = "project ids, comma separated (ids=1,2,3) or repeated (ids=1&ids=2), max. bf.lookup.max-ids")
+    	})
+    @APIResponse(responseCode = "200", description = "Found projects and missing ids", 
+    		content = @Content(mediaType = "application/json",
+            		schema = @Schema(implementation = ProjectLookup.class)))
+    @APIResponse(responseCode = "400", description = "Invalid request data",
+    content = @Content(mediaType = "application/json",
+ 	schema = @Schema(implementation = ErrorsResponse.class)))
+	public Response getProjectsByIds(
+			@QueryParam("ids") @NotNull @Size(min = 1) List<String> ids) {
+		return Response
+				.ok(lookup(IdList.parse(ids, lookupMaxIds)))
+				.build();
+	}
+	
+	@Transactional(TxType.SUPPORTS)
+	@ReadOnly
+	@Admission(Admission.HEAVY)
+	@POST
+	@Path("/lookup")
+	@Operation(summary = "Projects for a set of ids with one query (ids in the body), in order of the ids, ids without project are reported in the body")
+    @APIResponse(responseCode = "200", description = "Found projects and missing ids", 
+    		content = @Content(mediaType = "application/json",
+            		schema = @Schema(implementation = ProjectLookup.class)))
+    @APIResponse(responseCode = "400", description = "Invalid request data",
+    content = @Content(mediaType = "application/json",
+ 	schema = @Schema(implementation = ErrorsResponse.class)))
+	public Response lookupProjects(@NotNull List<Long> ids) {
+		return Response
+				.ok(lookup(IdList.distinct(ids, lookupMaxIds)))
+				.build();
+	}
+	
+	//All projects in one IN query (or from the caches), null entries of the ordered result are missing ids
+	private ProjectLookup lookup(List<Long> ids) {
+		List<Project> projects = shardDirectory.enabled() ? shardedLookup(ids) : em.unwrap(Session.class)
+				.byMultipleIds(Project.class)
+				.enableOrderedReturn(true)
+				.withBatchSize(Math.max(ids.size(), 1))
+				.multiLoad(ids);
+		ProjectLookup result = new ProjectLookup();
+		for (int i = 0; i < ids.size(); i++) {
+			if (projects.get(i) != null) {
+				result.projects.add(projects.get(i));
+			} else {
+				result.missing.add(ids.get(i));
+			}
+		}
+		return result;
+	}
+	
+	//Ids grouped by shard, one IN query per shard, result in order of the ids
+	private List<Project> shardedLookup(List<Long> ids) {
+		Map<Integer, List<Long>> idsByShard = ids.stream().collect(Collectors.groupingBy(shardDirectory::shardOfProject));
+		Map<Long, Project> found = new HashMap<>();
+		idsByShard.forEach((shard, shardIds) -> shardTransaction.call(shard, () -> em.unwrap(Session.class)
+				.byMultipleIds(Project.class)
+				.withBatchSize(Math.max(shardIds.size(), 1))
+				.multiLoad(shardIds))
+				.stream().filter(Objects::nonNull).forEach(project -> found.put(project.id, project)));
+		return ids.stream().map(found::get).collect(Collectors.toList());
+	}
+	
+	@Transactional(TxType.SUPPORTS)
+	@ReadOnly
+	@GET
+    @Path("/search")
+    @Operation(summary = "Projects whose name contains the query (case insensitive), best matches first")
+    @Parameters({
+    	@Parameter(name = "q", in = ParameterIn.QUERY, required = true, 
+    			description = "part of the project name"),
+    	@Parameter(name = "pageNum", in = ParameterIn.QUERY,required = false, 
+    			description = "number of requested page, value >= 0"),
+    	@Parameter(name = "pageSize", in = ParameterIn.QUERY,required = false, 
+		description = "size of page (number of records), value >= 0" )
+    	})
+    @APIResponse(responseCode = "200", description = "Ranked projects, number of all hits in header X-Total-Count", 
+    		content = @Content(mediaType = "application/json",
+            		schema = @Schema(type = SchemaType.ARRAY, implementation = SearchHit.class)))
+    @APIResponse(responseCode = "400", description = "Invalid request data",
+    content = @Content(mediaType = "application/json",
+ 	schema = @Schema(implementation = ErrorsResponse.class)))
+	public Response search(
+    		@QueryParam("q") @NotNull @Size(min = 1, max = 20) String query,
+    		@QueryParam("pageNum") @DefaultValue("0") @Min(0) int pageNum, 
+    		@QueryParam("pageSize") @DefaultValue("10") @Min(0) int pageSize) {
+		SearchResult result = nameSearch.search(NameSearch.Type.PROJECT, null, query, pageNum * pageSize, pageSize);
+    	return Response
+    			.ok(result.hits)
+    			.header("X-Total-Count", result.total)
     			.build();
     }
 	
+	@Transactional(TxType.SUPPORTS)
+	@ReadOnly
+	@Admission(Admission.HEAVY)
 	@GET
     @Path("/{id}")
     @Operation(summary = "Get project for id including contained items")
     @Parameters({
     	@Parameter(name = "id", in = ParameterIn.PATH, required = true, 
-    			description = "unique project identifier")})
+    			description = "unique project identifier"),
+    	@Parameter(name = "fields", in = ParameterIn.QUERY,required = false, 
+		description = "comma separated fields of the project (id, name, items) and of its items (items.id, items.name, ...)" ),
+    	@Parameter(name = "expand", in = ParameterIn.QUERY,required = false, 
+		description = "items: include items, without fields or expand the complete project is returned" ),
+    	@Parameter(name = "depth", in = ParameterIn.QUERY,required = false, 
+		description = "levels of included items (1 = main items only), value 1 - 10, default 1" )
+    	})
     @APIResponse(responseCode = "200", description = "Project for id", 
     		content = @Content(mediaType = "application/json",
             		schema = @Schema(type = SchemaType.ARRAY, implementation = Project.class)))
@@ -94,18 +370,49 @@ public class ProjectResource {
 	content = @Content(mediaType = "application/json",
     		schema = @Schema(implementation = String.class)))    
 	public Response getProjectById(
-    		@PathParam("id") @NotNull Long id) {
-    	long timestamp = System.currentTimeMillis();
+    		@PathParam("id") @NotNull Long id,
+    		@QueryParam("fields") String fields,
+    		@QueryParam("expand") String expand,
+    		@QueryParam("depth") @Min(1) @Max(10) Integer depth) {
+    	//Conditional request: answer 304 without loading the project, if its version has not changed
+    	Long version = projectVersions.current(id);
+    	if (version == null) {
+    		return Response.status(Response.Status.NOT_FOUND).build();
+    	}
+    	FieldSelection selection = FieldSelection.parse(FieldSelection.Type.PROJECT, fields, expand, depth);
+    	EntityTag tag = ProjectVersions.negotiated((selection == null) 
+    			? ProjectVersions.tag(id, version) 
+    			: ProjectVersions.tag(id, version, fields, expand, depth), headers);
+    	Response.ResponseBuilder notModified = ProjectVersions.notModified(request, tag);
+    	if (notModified != null) {
+    		return notModified.build();
+    	}
+    	//Concurrent calls for the same representation share one load and serialization
+    	return requestCoalescer.load("projects.id", tag, headers, providers, () -> loadProject(id, selection, tag));
+    }
+    
+    private Response loadProject(Long id, FieldSelection selection, EntityTag tag) {
+    	if (selection != null) {
+    		List<?> records = projectionReader.projects("p.id = :id", Collections.singletonMap("id", id), 0, 1, selection).records;
+    		if (records.isEmpty()) {
+    			return Response.status(Response.Status.NOT_FOUND).build();
+    		}
+    		return Response
+        			.ok(records.get(0))
+        			.tag(tag)
+        			.build();
+    	}
     	Project myProject = Project.findById(id);
     	if (myProject != null) {
     	   	return Response
         			.ok(myProject)
-            		.header("responsetime", (System.currentTimeMillis() - timestamp))
+        			.tag(tag)
         			.build();
     	}
     	return Response.status(Response.Status.NOT_FOUND).build();
     }
 	
+	@Admission(Admission.WRITE)
 	@POST
 	@Operation(summary = "Create new project (creation if project without contained items only)")
     @APIResponse(responseCode = "201", description = "Created project",
@@ -121,10 +428,17 @@ public class ProjectResource {
 		project.id = null;
 		//Items will not be stored in this method
 		if (project.items != null) project.items.clear();
+		//New project on the next shard (round robin), its id comes from the sequence of the shard
+		int shard = shardDirectory.place();
+		ShardContext.set(shard);
 		Project storedProject = em.merge(project);
+		shardDirectory.register(storedProject.id, shard);
+		rowCounters.projectAdded();
+		searchIndexer.indexProject(storedProject.id, storedProject.name);
 		return Response.status(Response.Status.CREATED).entity(storedProject).build();
 	}
 	
+	@Admission(Admission.WRITE)
 	@PUT
 	@Operation(summary = "Update project (update on project level only, no update of items)")
     @APIResponse(responseCode = "201", description = "updated project",
@@ -137,22 +451,120 @@ public class ProjectResource {
 	content = @Content(mediaType = "application/json",
     		schema = @Schema(implementation = String.class)))    
 	public Response change(@Valid Project project) {
+		//Id in the body: shard is selected before the first statement
+		ShardContext.set(shardDirectory.shardOfProject(project.id));
 	 	Project myProject  = Project.findById(project.id);
     	if (myProject != null) {
     		myProject.name = project.name;
+    		//Project version is incremented by the update (optimistic locking)
     		myProject.persist();
+    		searchIndexer.indexProject(myProject.id, myProject.name);
     		return Response.status(Response.Status.OK).entity(myProject).build();
     	}else {
     		return Response.status(Response.Status.NOT_FOUND).build();
     	}
 	}
 	
+	@Admission(Admission.WRITE)
+	@PATCH
+	@Path("/{id}")
+	@Operation(summary = "Partial update of project attributes with one statement, optimistic locking on the project version (no update of items)")
+    @Parameters({
+    	@Parameter(name = "id", in = ParameterIn.PATH, required = true, 
+    			description = "unique project identifier"),
+    	@Parameter(name = "If-Match", in = ParameterIn.HEADER, required = false, 
+    			description = "optional: strong entity tag of the project (GET /projects/{id}), weak tags are rejected")})
+    @APIResponse(responseCode = "200", description = "updated project without items",
+                 content = @Content(mediaType = "application/json",
+                 	schema = @Schema(implementation = Project.class)))
+    @APIResponse(responseCode = "400", description = "Invalid request data",
+    content = @Content(mediaType = "application/json",
+ 	schema = @Schema(implementation = ErrorsResponse.class)))
+	@APIResponse(responseCode = "404", description = "project for given id has not been found")
+    @APIResponse(responseCode = "409", description = "project has been changed since the given version",
+    content = @Content(mediaType = "application/json",
+ 	schema = @Schema(implementation = ErrorsResponse.class)))
+    @APIResponse(responseCode = "412", description = "If-Match does not match the current entity tag of the project")
+    @APIResponse(responseCode = "500", description = "Unknown error", 
+	content = @Content(mediaType = "application/json",
+    		schema = @Schema(implementation = String.class)))    
+	@SuppressWarnings("unchecked")
+	public Response patch(@PathParam("id") @NotNull Long id,
+			@HeaderParam(HttpHeaders.IF_MATCH) String ifMatch,
+			@Valid @NotNull ProjectPatch patch) {
+		if (patch.name == null) {
+			throw new BusinessException("40018", "Patch contains no attribute to change");
+		}
+		if (ifMatch != null) {
+			Long version = projectVersions.current(id);
+			if (version != null && !ProjectVersions.matches(ifMatch, ProjectVersions.tag(id, version))) {
+				return Response.status(Response.Status.PRECONDITION_FAILED).build();
+			}
+		}
+		//One statement: update and version check, the project and its items are not loaded
+		List<Object[]> rows = em.createNativeQuery("UPDATE project SET name = :name, version = version + 1"
+				+ " WHERE id = :id AND version = :version RETURNING name, version")
+				.setParameter("name", patch.name)
+				.setParameter("id", id)
+				.setParameter("version", patch.version)
+				.getResultList();
+		if (rows.isEmpty()) {
+			if (projectVersions.current(id) == null) {
+				return Response.status(Response.Status.NOT_FOUND).build();
+			}
+			throw new ConflictException("Project with id " + id + " has been changed since version " + patch.version);
+		}
+		Project project = new Project();
+		project.id = id;
+		project.name = (String) rows.get(0)[0];
+		project.version = ((Number) rows.get(0)[1]).longValue();
+		//Native update: cached project is not valid anymore
+		cacheEvictor.evictProject(id);
+		searchIndexer.indexProject(id, project.name);
+		return Response.status(Response.Status.OK).entity(project).build();
+	}
+	
+	//Project and all of its items with set based statements, no entity is loaded
+	private Response deleteWithItems(Long id) {
+		if (projectVersions.current(id) == null) {
+			return Response.status(Response.Status.NOT_FOUND).build();
+		}
+		//One statement: foreign keys between the deleted items are checked at its end, their ids are returned for the search index
+		List<?> deletedIds = em.createNativeQuery("DELETE FROM item WHERE project_id = :id RETURNING id")
+				.setParameter("id", id)
+				.unwrap(NativeQuery.class)
+				.addSynchronizedQuerySpace("item")
+				.getResultList();
+		List<Long> itemIds = new ArrayList<>(deletedIds.size());
+		for (Object itemId : deletedIds) {
+			itemIds.add(((Number) itemId).longValue());
+		}
+		em.createNativeQuery("DELETE FROM project WHERE id = :id")
+				.setParameter("id", id)
+				.unwrap(NativeQuery.class)
+				.addSynchronizedQuerySpace("project")
+				.executeUpdate();
+		cacheEvictor.evictAllItems();
+		cacheEvictor.evictProject(id);
+		rowCounters.projectRemoved(id);
+		projectVersions.removed(id);
+		searchIndexer.removeItems(itemIds);
+		searchIndexer.removeProject(id);
+		shardDirectory.unregister(id);
+    	return Response
+        		.status(Response.Status.NO_CONTENT)
+        		.build();
+	}
+	
+	@Admission(Admission.WRITE)
 	@DELETE
     @Path("/{id}")
-    @Operation(summary = "delete project (deletion of project only, items have to be deleted before")
+    @Operation(summary = "delete project (deletion of project only, items have to be deleted before, or all items are deleted with cascade=true")
     @Parameters({
     	@Parameter(name = "id", in = ParameterIn.PATH, required = true, 
-    			description = "unique project identifier")})
+    			description = "unique project identifier"),
+    	@Parameter(name = "cascade", in = ParameterIn.QUERY, required = false, 
+    			description = "true: delete project with all items by set based statements, default false")})
     @APIResponse(responseCode = "204", description = "project for given id has been deleted")
     @APIResponse(responseCode = "400", description = "Invalid request data",
     content = @Content(mediaType = "application/json",
@@ -163,19 +575,40 @@ public class ProjectResource {
     @APIResponse(responseCode = "500", description = "Unknown error", 
 	content = @Content(mediaType = "application/json",
     		schema = @Schema(implementation = String.class)))    
-	public Response delete(@PathParam("id") Long id) throws Exception{
-    	Project project  = Project.findById(id);
-    	if (project != null) {
-    		List<Item> items = Item.findByProjectId(id).list();
-    		if (items != null){
-    			if (items.size() > 0) throw new BusinessException("40009","Project contains items, which must be deleted before!");
+	public Response delete(@PathParam("id") Long id,
+			@QueryParam("cascade") @DefaultValue("false") boolean cascade) throws Exception{
+		if (cascade) {
+			return deleteWithItems(id);
+		}
+		//Project without items: check and delete in one statement, the project and its item list are not loaded
+		int deleted;
+		try {
+			deleted = em.createNativeQuery("DELETE FROM project p WHERE p.id = :id"
+					+ " AND NOT EXISTS (SELECT 1 FROM item i WHERE i.project_id = :id)")
+					.setParameter("id", id)
+					.unwrap(NativeQuery.class)
+					.addSynchronizedQuerySpace("project")
+					.executeUpdate();
+		} catch (PersistenceException e) {
+			//Item of a concurrent insert committed while the delete waited for its lock on the project row
+			if (e.getCause() instanceof ConstraintViolationException) {
+				throw new BusinessException("40009","Project contains items, which must be deleted before!");
 			}
-    		project.delete();
+			throw e;
+		}
+    	if (deleted > 0) {
+    		cacheEvictor.evictProject(id);
+    		rowCounters.projectRemoved(id);
+    		projectVersions.removed(id);
+    		searchIndexer.removeProject(id);
+    		shardDirectory.unregister(id);
         	return Response
             		.status(Response.Status.NO_CONTENT)
             		.build();
-    	} else {
+    	} else if (projectVersions.current(id) == null) {
     		return Response.status(Response.Status.NOT_FOUND).build();
-		}    	
+		} else {
+			throw new BusinessException("40009","Project contains items, which must be deleted before!");
+		}
     }
 }
\ No newline at end of file
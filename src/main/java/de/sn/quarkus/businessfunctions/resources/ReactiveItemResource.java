@@ -0,0 +1,218 @@
+package de.sn.quarkus.businessfunctions.resources;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.ParameterIn;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameters;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.jboss.resteasy.annotations.jaxrs.PathParam;
+
+import de.sn.quarkus.businessfunctions.binary.BinaryFormats;
+import de.sn.quarkus.businessfunctions.exception.BusinessException;
+import de.sn.quarkus.businessfunctions.model.ItemNode;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.Tuple;
+
+/**
+ * Non-blocking read path for items: queries run on the reactive PostgreSQL client, no worker
+ * thread and no JDBC connection is held while the database is working.
+ */
+@Tag(name= "Items") //OpenAPI
+@Path("/reactive/items")
+@Produces({MediaType.APPLICATION_JSON, BinaryFormats.APPLICATION_CBOR, BinaryFormats.APPLICATION_SMILE})
+public class ReactiveItemResource {
+	
+	static final String ITEM_COLUMNS = "SELECT id, name, imageurl, level, item_id FROM item";
+	
+	static final String TREE_QUERY = 
+			"WITH RECURSIVE tree (id, name, imageurl, level, item_id, depth) AS ("
+			+ " SELECT i.id, i.name, i.imageurl, i.level, i.item_id, 0 FROM item i"
+			+ " WHERE i.project_id = $1 AND i.item_id IS NULL"
+			+ " UNION ALL"
+			+ " SELECT c.id, c.name, c.imageurl, c.level, c.item_id, t.depth + 1 FROM item c"
+			+ " JOIN tree t ON c.item_id = t.id WHERE t.depth < $2)"
+			+ " SELECT id, name, imageurl, level, item_id FROM tree";
+	
+	static final String SUBTREE_QUERY = 
+			"WITH RECURSIVE tree (id, name, imageurl, level, item_id, depth) AS ("
+			+ " SELECT i.id, i.name, i.imageurl, i.level, i.item_id, 0 FROM item i"
+			+ " WHERE i.project_id = $1 AND i.id = $3"
+			+ " UNION ALL"
+			+ " SELECT c.id, c.name, c.imageurl, c.level, c.item_id, t.depth + 1 FROM item c"
+			+ " JOIN tree t ON c.item_id = t.id WHERE t.depth < $2)"
+			+ " SELECT id, name, imageurl, level, item_id FROM tree";
+	
+	@Inject
+	PgPool client;
+	
+	//Off with more than one shard (ShardDirectory): the reactive client reads shard 0 only
+	@ConfigProperty(name = "bf.reactive.enabled", defaultValue = "true")
+	boolean enabled;
+	
+	@GET
+	@Path("/project/{projectid}")
+	@Operation(summary = "List of items of a certain project (non-blocking, without sub items)")
+	@Parameters({
+		@Parameter(name = "projectid", in = ParameterIn.PATH,required = true, 
+    			description = "project id, value >= 0"),
+		@Parameter(name = "pageNum", in = ParameterIn.QUERY,required = false, 
+    			description = "number of requested page, value >= 0"),
+    	@Parameter(name = "pageSize", in = ParameterIn.QUERY,required = false, 
+		description = "size of page (number of records), value >= 0" ),
+    	@Parameter(name = "after", in = ParameterIn.QUERY,required = false, 
+		description = "cursor of the last record of the previous page (header nextcursor), switches to keyset pagination" ),
+    	@Parameter(name = "limit", in = ParameterIn.QUERY,required = false, 
+		description = "size of page for keyset pagination, value >= 1, switches to keyset pagination" )
+    	})
+    @APIResponse(responseCode = "200", description = "List of items for that project", 
+    		content = @Content(mediaType = "application/json",
+            		schema = @Schema(type = SchemaType.ARRAY, implementation = ItemNode.class)))
+    public Uni<Response> getPagableItemListForProject(
+    		@PathParam("projectid") @NotNull Long projectid,
+    		@QueryParam("pageNum") @DefaultValue("0") @Min(0) int pageNum, 
+    		@QueryParam("pageSize") @DefaultValue("10") @Min(0) int pageSize,
+    		@QueryParam("after") String after,
+    		@QueryParam("limit") @Min(1) Integer limit) {
+		if (!enabled) return disabled();
+		
+		if (after == null && limit == null) {
+			return client.preparedQuery(ITEM_COLUMNS + " WHERE project_id = $1 ORDER BY level, id LIMIT $2 OFFSET $3")
+					.execute(Tuple.of(projectid, pageSize, pageNum * pageSize))
+					.onItem().apply(rows -> Response
+							.ok(toNodes(rows))
+							.build());
+		}
+		
+		//Keyset pagination on (project, level, id), same cursor as the blocking path
+		int size = (limit != null) ? limit : Math.max(pageSize, 1);
+		Uni<RowSet<Row>> query;
+		if (after == null) {
+			query = client.preparedQuery(ITEM_COLUMNS + " WHERE project_id = $1 ORDER BY level, id LIMIT $2")
+					.execute(Tuple.of(projectid, size + 1));
+		} else {
+			long[] key = PageCursor.decode(after, 3);
+			if (key[0] != projectid) {
+				throw new BusinessException("40010", "Invalid cursor " + after);
+			}
+			query = client.preparedQuery(ITEM_COLUMNS 
+					+ " WHERE project_id = $1 AND (level, id) > ($2, $3) ORDER BY level, id LIMIT $4")
+					.execute(Tuple.of(projectid, (int) key[1], key[2], size + 1));
+		}
+		return query.onItem().apply(rows -> {
+			List<ItemNode> items = toNodes(rows);
+			String nextCursor = null;
+			if (items.size() > size) {
+				items = items.subList(0, size);
+				ItemNode last = items.get(size - 1);
+				nextCursor = PageCursor.encode(projectid, last.level, last.id);
+			}
+			return Response
+					.ok(items)
+					.header("nextcursor", nextCursor)
+					.build();
+		});
+    }
+	
+	@GET
+	@Path("/project/{projectid}/tree")
+	@Operation(summary = "Item hierarchy of a certain project (or of one item within the project), non-blocking")
+	@Parameters({
+		@Parameter(name = "projectid", in = ParameterIn.PATH,required = true, 
+    			description = "project id, value >= 0"),
+		@Parameter(name = "root", in = ParameterIn.QUERY,required = false, 
+    			description = "id of the item at the top of the requested hierarchy, all main items if empty"),
+    	@Parameter(name = "depth", in = ParameterIn.QUERY,required = false, 
+		description = "number of levels below the top items, value >= 0, unlimited if empty" )
+    	})
+    @APIResponse(responseCode = "200", description = "Item hierarchy for that project", 
+    		content = @Content(mediaType = "application/json",
+            		schema = @Schema(type = SchemaType.ARRAY, implementation = ItemNode.class)))
+    @APIResponse(responseCode = "404", description = "item for given root id has not been found in project")
+    public Uni<Response> getItemTreeForProject(
+    		@PathParam("projectid") @NotNull Long projectid,
+    		@QueryParam("root") Long rootId,
+    		@QueryParam("depth") @Min(0) Integer depth) {
+		if (!enabled) return disabled();
+		
+		int maxDepth = (depth != null) ? depth : Integer.MAX_VALUE;
+		Uni<RowSet<Row>> query = (rootId == null)
+				? client.preparedQuery(TREE_QUERY).execute(Tuple.of(projectid, maxDepth))
+				: client.preparedQuery(SUBTREE_QUERY).execute(Tuple.of(projectid, maxDepth, rootId));
+		return query.onItem().apply(rows -> {
+			List<ItemNode> nodes = toNodes(rows);
+			if (rootId != null && nodes.isEmpty()) {
+				return Response.status(Response.Status.NOT_FOUND).build();
+			}
+			return Response
+					.ok(ItemNode.buildTree(nodes))
+					.build();
+		});
+    }
+	
+	@GET
+    @Path("/{id}")
+    @Operation(summary = "Get item for id (non-blocking, without sub items)")
+    @Parameters({
+    	@Parameter(name = "id", in = ParameterIn.PATH, required = true, 
+    			description = "unique item identifier")})
+    @APIResponse(responseCode = "200", description = "item for id", 
+    		content = @Content(mediaType = "application/json",
+            		schema = @Schema(implementation = ItemNode.class)))
+    @APIResponse(responseCode = "404", description = "item for given id has not been found")
+	public Uni<Response> getItemById(
+    		@PathParam("id") @NotNull Long id) {
+		if (!enabled) return disabled();
+		
+		return client.preparedQuery(ITEM_COLUMNS + " WHERE id = $1")
+				.execute(Tuple.of(id))
+				.onItem().apply(rows -> {
+					List<ItemNode> items = toNodes(rows);
+					if (items.isEmpty()) {
+						return Response.status(Response.Status.NOT_FOUND).build();
+					}
+					return Response
+							.ok(items.get(0))
+							.build();
+				});
+    }
+	
+	static List<ItemNode> toNodes(RowSet<Row> rows) {
+		List<ItemNode> nodes = new ArrayList<>(rows.size());
+		for (Row row : rows) {
+			nodes.add(new ItemNode(
+					row.getLong("id"),
+					row.getString("name"),
+					row.getString("imageurl"),
+					row.getInteger("level"),
+					row.getLong("item_id")));
+		}
+		return nodes;
+	}
+	
+	//Reactive read path switched off (bf.reactive.enabled=false)
+	static Uni<Response> disabled() {
+		return Uni.createFrom().item(Response.status(Response.Status.NOT_FOUND).build());
+	}
+}
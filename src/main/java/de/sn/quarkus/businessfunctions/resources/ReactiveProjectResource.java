@@ -0,0 +1,143 @@
+package de.sn.quarkus.businessfunctions.resources;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.inject.Inject;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.openapi.annotations.Operation;
+import org.eclipse.microprofile.openapi.annotations.enums.ParameterIn;
+import org.eclipse.microprofile.openapi.annotations.enums.SchemaType;
+import org.eclipse.microprofile.openapi.annotations.media.Content;
+import org.eclipse.microprofile.openapi.annotations.media.Schema;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+import org.eclipse.microprofile.openapi.annotations.parameters.Parameters;
+import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
+import org.eclipse.microprofile.openapi.annotations.tags.Tag;
+import org.jboss.resteasy.annotations.jaxrs.PathParam;
+
+import de.sn.quarkus.businessfunctions.binary.BinaryFormats;
+import de.sn.quarkus.businessfunctions.model.ItemNode;
+import de.sn.quarkus.businessfunctions.model.ProjectNode;
+import io.smallrye.mutiny.Uni;
+import io.vertx.mutiny.pgclient.PgPool;
+import io.vertx.mutiny.sqlclient.Row;
+import io.vertx.mutiny.sqlclient.RowSet;
+import io.vertx.mutiny.sqlclient.Tuple;
+
+/**
+ * Non-blocking read path for projects: queries run on the reactive PostgreSQL client, no worker
+ * thread and no JDBC connection is held while the database is working.
+ */
+@Tag(name= "Projects") //OpenAPI
+@Path("/reactive/projects")
+@Produces({MediaType.APPLICATION_JSON, BinaryFormats.APPLICATION_CBOR, BinaryFormats.APPLICATION_SMILE})
+public class ReactiveProjectResource {
+	
+	@Inject
+	PgPool client;
+	
+	//Off with more than one shard (ShardDirectory): the reactive client reads shard 0 only
+	@ConfigProperty(name = "bf.reactive.enabled", defaultValue = "true")
+	boolean enabled;
+	
+	@GET
+    @Operation(summary = "List of projects (non-blocking, without contained items)")
+    @Parameters({
+    	@Parameter(name = "pageNum", in = ParameterIn.QUERY,required = false, 
+    			description = "number of requested page, value >= 0"),
+    	@Parameter(name = "pageSize", in = ParameterIn.QUERY,required = false, 
+		description = "size of page (number of records), value >= 0" ),
+    	@Parameter(name = "after", in = ParameterIn.QUERY,required = false, 
+		description = "cursor of the last record of the previous page (header nextcursor), switches to keyset pagination" ),
+    	@Parameter(name = "limit", in = ParameterIn.QUERY,required = false, 
+		description = "size of page for keyset pagination, value >= 1, switches to keyset pagination" )
+    	})
+    @APIResponse(responseCode = "200", description = "List of projects", 
+    		content = @Content(mediaType = "application/json",
+            		schema = @Schema(type = SchemaType.ARRAY, implementation = ProjectNode.class)))
+	public Uni<Response> getPagableList( 
+    		@QueryParam("pageNum") @DefaultValue("0") @Min(0) int pageNum, 
+    		@QueryParam("pageSize") @DefaultValue("10") @Min(0) int pageSize,
+    		@QueryParam("after") String after,
+    		@QueryParam("limit") @Min(1) Integer limit) {
+		if (!enabled) return ReactiveItemResource.disabled();
+		
+		if (after == null && limit == null) {
+			return client.preparedQuery("SELECT id, name FROM project ORDER BY id LIMIT $1 OFFSET $2")
+					.execute(Tuple.of(pageSize, pageNum * pageSize))
+					.onItem().apply(rows -> Response
+							.ok(toNodes(rows))
+							.build());
+		}
+		
+		//Keyset pagination on id, same cursor as the blocking path
+		int size = (limit != null) ? limit : Math.max(pageSize, 1);
+		long afterId = (after != null) ? PageCursor.decode(after, 1)[0] : Long.MIN_VALUE;
+		return client.preparedQuery("SELECT id, name FROM project WHERE id > $1 ORDER BY id LIMIT $2")
+				.execute(Tuple.of(afterId, size + 1))
+				.onItem().apply(rows -> {
+					List<ProjectNode> projects = toNodes(rows);
+					String nextCursor = null;
+					if (projects.size() > size) {
+						projects = projects.subList(0, size);
+						nextCursor = PageCursor.encode(projects.get(size - 1).id);
+					}
+					return Response
+							.ok(projects)
+							.header("nextcursor", nextCursor)
+							.build();
+				});
+    }
+	
+	@GET
+    @Path("/{id}")
+    @Operation(summary = "Get project for id including item hierarchy (non-blocking)")
+    @Parameters({
+    	@Parameter(name = "id", in = ParameterIn.PATH, required = true, 
+    			description = "unique project identifier")})
+    @APIResponse(responseCode = "200", description = "Project for id", 
+    		content = @Content(mediaType = "application/json",
+            		schema = @Schema(implementation = ProjectNode.class)))
+    @APIResponse(responseCode = "404", description = "project for given id has not been found")
+	public Uni<Response> getProjectById(
+    		@PathParam("id") @NotNull Long id) {
+		if (!enabled) return ReactiveItemResource.disabled();
+		
+		return client.preparedQuery("SELECT id, name FROM project WHERE id = $1")
+				.execute(Tuple.of(id))
+				.onItem().produceUni(rows -> {
+					List<ProjectNode> projects = toNodes(rows);
+					if (projects.isEmpty()) {
+						return Uni.createFrom().item(Response.status(Response.Status.NOT_FOUND).build());
+					}
+					ProjectNode project = projects.get(0);
+					return client.preparedQuery(ReactiveItemResource.TREE_QUERY)
+							.execute(Tuple.of(id, Integer.MAX_VALUE))
+							.onItem().apply(items -> {
+								project.items = ItemNode.buildTree(ReactiveItemResource.toNodes(items));
+								return Response
+										.ok(project)
+										.build();
+							});
+				});
+    }
+	
+	private static List<ProjectNode> toNodes(RowSet<Row> rows) {
+		List<ProjectNode> nodes = new ArrayList<>(rows.size());
+		for (Row row : rows) {
+			nodes.add(new ProjectNode(row.getLong("id"), row.getString("name")));
+		}
+		return nodes;
+	}
+}
@@ -0,0 +1,21 @@
+package de.sn.quarkus.businessfunctions.search;
+
+/**
+ * Substring search over project and item names. The default implementation is the in-memory
+ * {@link TrigramIndex}, another implementation can be provided as CDI bean of this type.
+ */
+public interface NameSearch {
+
+	enum Type { PROJECT, ITEM }
+
+	//Add or replace the name of a record
+	void put(Type type, long id, Long projectId, String name);
+
+	void remove(Type type, long id);
+
+	//Remove all records, e.g. before a rebuild
+	void clear();
+
+	//Records containing the query (case insensitive), ranked, optionally scoped to a project
+	SearchResult search(Type type, Long projectId, String query, int offset, int limit);
+}
@@ -0,0 +1,104 @@
+package de.sn.quarkus.businessfunctions.search;
+
+import java.util.List;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import javax.transaction.Transactional;
+
+import org.jboss.logging.Logger;
+
+import de.sn.quarkus.businessfunctions.model.ItemNode;
+import de.sn.quarkus.businessfunctions.search.NameSearch.Type;
+import de.sn.quarkus.businessfunctions.shard.ShardExecutor;
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Keeps the name search up to date. The index is built from the database at startup,
+ * changes of the write paths are applied after the transaction has been committed.
+ */
+@ApplicationScoped
+public class SearchIndexer {
+
+	private static final Logger LOG = Logger.getLogger(SearchIndexer.class);
+
+	@Inject
+	NameSearch search;
+
+	@Inject
+	EntityManager em;
+
+	@Inject
+	TransactionSynchronizationRegistry transactionRegistry;
+
+	@Inject
+	ShardExecutor shardExecutor;
+
+	void onStart(@Observes StartupEvent event) {
+		rebuild();
+	}
+
+	//Load names of all projects and items (of all shards), scalar queries without entity graphs
+	@Transactional
+	public void rebuild() {
+		search.clear();
+		List<Object[]> projects = shardExecutor.gather(
+				() -> em.createQuery("select p.id, p.name from Project p", Object[].class).getResultList());
+		for (Object[] project : projects) {
+			search.put(Type.PROJECT, (Long) project[0], null, (String) project[1]);
+		}
+		List<Object[]> items = shardExecutor.gather(
+				() -> em.createQuery("select i.id, i.project.id, i.name from Item i", Object[].class).getResultList());
+		for (Object[] item : items) {
+			search.put(Type.ITEM, (Long) item[0], (Long) item[1], (String) item[2]);
+		}
+		LOG.info("Name search built with " + projects.size() + " projects and " + items.size() + " items");
+	}
+
+	public void indexProject(Long id, String name) {
+		afterCommit(() -> search.put(Type.PROJECT, id, null, name));
+	}
+
+	public void removeProject(Long id) {
+		afterCommit(() -> search.remove(Type.PROJECT, id));
+	}
+
+	public void indexItem(Long id, Long projectid, String name) {
+		afterCommit(() -> search.put(Type.ITEM, id, projectid, name));
+	}
+
+	public void indexItems(Long projectid, List<ItemNode> items) {
+		afterCommit(() -> items.forEach(item -> search.put(Type.ITEM, item.id, projectid, item.name)));
+	}
+
+	public void removeItem(Long id) {
+		afterCommit(() -> search.remove(Type.ITEM, id));
+	}
+
+	public void removeItems(List<Long> ids) {
+		afterCommit(() -> ids.forEach(id -> search.remove(Type.ITEM, id)));
+	}
+
+	//Rolled back changes never reach the index
+	private void afterCommit(Runnable update) {
+		if (transactionRegistry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+			update.run();
+			return;
+		}
+		transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+			@Override
+			public void beforeCompletion() {
+			}
+
+			@Override
+			public void afterCompletion(int status) {
+				if (status == Status.STATUS_COMMITTED) update.run();
+			}
+		});
+	}
+}
@@ -0,0 +1,19 @@
+package de.sn.quarkus.businessfunctions.search;
+
+import java.util.List;
+
+import de.sn.quarkus.businessfunctions.model.SearchHit;
+
+/**
+ * One page of search hits and the number of all hits.
+ */
+public class SearchResult {
+
+	public final long total;
+	public final List<SearchHit> hits;
+
+	public SearchResult(long total, List<SearchHit> hits) {
+		this.total = total;
+		this.hits = hits;
+	}
+}
@@ -0,0 +1,198 @@
+package de.sn.quarkus.businessfunctions.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import javax.enterprise.context.ApplicationScoped;
+
+import de.sn.quarkus.businessfunctions.model.SearchHit;
+import io.quarkus.arc.DefaultBean;
+
+/**
+ * In-memory inverted index of name trigrams. A query is answered by intersecting the posting
+ * lists of its trigrams, starting with the shortest one, and verifying the remaining candidates.
+ * The work depends on the rarest trigram of the query instead of the number of records.
+ * Queries shorter than a trigram scan the records of the project (or all records without project).
+ */
+@ApplicationScoped
+@DefaultBean
+public class TrigramIndex implements NameSearch {
+
+	private static final int GRAM = 3;
+
+	private final Map<Type, Index> indexes = new EnumMap<>(Type.class);
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	public TrigramIndex() {
+		for (Type type : Type.values()) {
+			indexes.put(type, new Index());
+		}
+	}
+
+	@Override
+	public void put(Type type, long id, Long projectId, String name) {
+		lock.writeLock().lock();
+		try {
+			Index index = indexes.get(type);
+			index.remove(id);
+			if (name != null) {
+				index.add(new Entry(id, projectId, name));
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void remove(Type type, long id) {
+		lock.writeLock().lock();
+		try {
+			indexes.get(type).remove(id);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			for (Type type : Type.values()) {
+				indexes.put(type, new Index());
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public SearchResult search(Type type, Long projectId, String query, int offset, int limit) {
+		String normalized = normalize(query);
+		List<SearchHit> hits = new ArrayList<>();
+		lock.readLock().lock();
+		try {
+			Index index = indexes.get(type);
+			for (Long id : index.candidates(projectId, normalized)) {
+				Entry entry = index.entries.get(id);
+				if (projectId != null && !projectId.equals(entry.projectId)) continue;
+				int position = entry.normalized.indexOf(normalized);
+				if (position < 0) continue;
+				hits.add(new SearchHit(entry.id, entry.name, entry.projectId, score(entry.normalized, normalized, position)));
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		hits.sort((a, b) -> (a.score != b.score) ? Double.compare(b.score, a.score) : Long.compare(a.id, b.id));
+		int from = Math.min(offset, hits.size());
+		int to = Math.min(from + limit, hits.size());
+		return new SearchResult(hits.size(), new ArrayList<>(hits.subList(from, to)));
+	}
+
+	//Exact match 3, prefix 2, start of a word 1, other substring 0, plus share of the name covered by the query
+	static double score(String name, String query, int position) {
+		int rank;
+		if (name.length() == query.length()) {
+			rank = 3;
+		} else if (position == 0) {
+			rank = 2;
+		} else if (!Character.isLetterOrDigit(name.charAt(position - 1))) {
+			rank = 1;
+		} else {
+			rank = 0;
+		}
+		return rank + (double) query.length() / name.length();
+	}
+
+	static String normalize(String name) {
+		return name.toLowerCase(Locale.ROOT);
+	}
+
+	//Distinct trigrams of a normalized name
+	static Set<String> trigrams(String normalized) {
+		Set<String> grams = new HashSet<>();
+		for (int i = 0; i + GRAM <= normalized.length(); i++) {
+			grams.add(normalized.substring(i, i + GRAM));
+		}
+		return grams;
+	}
+
+	private static final class Entry {
+		final long id;
+		final Long projectId;
+		final String name;
+		final String normalized;
+
+		Entry(long id, Long projectId, String name) {
+			this.id = id;
+			this.projectId = projectId;
+			this.name = name;
+			this.normalized = normalize(name);
+		}
+	}
+
+	private static final class Index {
+		final Map<Long, Entry> entries = new HashMap<>();
+		final Map<String, Set<Long>> postings = new HashMap<>();
+		final Map<Long, Set<Long>> byProject = new HashMap<>();
+
+		void add(Entry entry) {
+			entries.put(entry.id, entry);
+			for (String gram : trigrams(entry.normalized)) {
+				postings.computeIfAbsent(gram, g -> new HashSet<>()).add(entry.id);
+			}
+			if (entry.projectId != null) {
+				byProject.computeIfAbsent(entry.projectId, p -> new HashSet<>()).add(entry.id);
+			}
+		}
+
+		void remove(long id) {
+			Entry entry = entries.remove(id);
+			if (entry == null) return;
+			for (String gram : trigrams(entry.normalized)) {
+				Set<Long> ids = postings.get(gram);
+				if (ids != null && ids.remove(id) && ids.isEmpty()) postings.remove(gram);
+			}
+			if (entry.projectId != null) {
+				Set<Long> ids = byProject.get(entry.projectId);
+				if (ids != null && ids.remove(id) && ids.isEmpty()) byProject.remove(entry.projectId);
+			}
+		}
+
+		//Records containing all trigrams of the query, to be verified by the caller
+		Collection<Long> candidates(Long projectId, String query) {
+			if (query.length() < GRAM) {
+				if (projectId == null) return entries.keySet();
+				return byProject.getOrDefault(projectId, Collections.emptySet());
+			}
+			List<Set<Long>> lists = new ArrayList<>();
+			for (String gram : trigrams(query)) {
+				Set<Long> ids = postings.get(gram);
+				if (ids == null) return Collections.emptySet();
+				lists.add(ids);
+			}
+			if (projectId != null) {
+				lists.add(byProject.getOrDefault(projectId, Collections.emptySet()));
+			}
+			lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+			List<Long> candidates = new ArrayList<>();
+			for (Long id : lists.get(0)) {
+				boolean all = true;
+				for (int i = 1; i < lists.size() && all; i++) {
+					all = lists.get(i).contains(id);
+				}
+				if (all) candidates.add(id);
+			}
+			return candidates;
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package de.sn.quarkus.businessfunctions.shard;
+
+/**
+ * Shard of the current thread: JDBC connections opened by Hibernate are taken from its datasource.
+ * Set for each request (ShardRoutingFilter) and for each part of a scatter-gather (ShardExecutor), default shard 0.
+ */
+public final class ShardContext {
+
+	private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+	private ShardContext() {
+	}
+
+	public static int current() {
+		Integer shard = SHARD.get();
+		return (shard != null) ? shard : 0;
+	}
+
+	public static void set(int shard) {
+		if (shard == 0) SHARD.remove(); else SHARD.set(shard);
+	}
+}
@@ -0,0 +1,260 @@
+package de.sn.quarkus.businessfunctions.shard;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Instance;
+import javax.enterprise.util.AnnotationLiteral;
+import javax.inject.Inject;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+import javax.transaction.Transactional;
+import javax.transaction.Transactional.TxType;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import de.sn.quarkus.businessfunctions.id.BlockSequenceGenerator;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import io.quarkus.runtime.StartupEvent;
+
+/**
+ * Shards of the project-owned data: a project and all of its items live in one shard (datasource),
+ * shard 0 is the primary (incl. read replica), shard n > 0 the datasource "shard<n>".
+ * The directory (table project_shard on the primary) maps project ids to shards, new projects are placed
+ * round robin. Ids are unique over all shards: the sequences of shard n start at n * ID_RANGE,
+ * so items are located by their id and projects without directory entry by theirs.
+ * Entries are written after the commit of the project's transaction: a rolled back insert or delete
+ * leaves the directory unchanged, until the entry is written a new project is found by its id range.
+ * With bf.shard.count=1 (default) everything stays on the primary and the directory is not used.
+ * The read replica and the reactive read path are connected to shard 0 only, with more shards they
+ * must be disabled (bf.replica.enabled, bf.reactive.enabled), otherwise the start fails.
+ * The sequences of the other shards are created by script, their increment must be the configured
+ * block size (pooled optimizer), otherwise the start fails instead of handing out duplicate ids.
+ */
+@ApplicationScoped
+public class ShardDirectory {
+
+	public static final long ID_RANGE = 1L << 40;
+
+	private static final Logger LOG = Logger.getLogger(ShardDirectory.class);
+
+	@ConfigProperty(name = "bf.shard.count", defaultValue = "1")
+	int count;
+
+	@ConfigProperty(name = "bf.replica.enabled", defaultValue = "true")
+	boolean replicaEnabled;
+
+	@ConfigProperty(name = "bf.reactive.enabled", defaultValue = "true")
+	boolean reactiveEnabled;
+
+	@ConfigProperty(name = BlockSequenceGenerator.BLOCK_SIZE + "project_seq", defaultValue = "50")
+	long projectBlockSize;
+
+	@ConfigProperty(name = BlockSequenceGenerator.BLOCK_SIZE + "item_seq", defaultValue = "50")
+	long itemBlockSize;
+
+	//Directory (shard 0)
+	@Inject
+	@DataSource("primary")
+	AgroalDataSource directory;
+
+	@Inject
+	@Any
+	Instance<AgroalDataSource> dataSources;
+
+	@Inject
+	TransactionSynchronizationRegistry transactionRegistry;
+
+	private final Map<Long, Integer> projects = new ConcurrentHashMap<>();
+	private final AtomicInteger next = new AtomicInteger();
+	private AgroalDataSource[] shards;
+
+	@PostConstruct
+	void init() {
+		shards = new AgroalDataSource[count];
+		for (int shard = 1; shard < count; shard++) {
+			shards[shard] = dataSources.select(new DataSourceLiteral("shard" + shard)).get();
+		}
+	}
+
+	void onStart(@Observes StartupEvent event) {
+		checkConfiguration(count, replicaEnabled, reactiveEnabled);
+		Map<String, Long> blockSizes = new LinkedHashMap<>();
+		blockSizes.put("project_seq", projectBlockSize);
+		blockSizes.put("item_seq", itemBlockSize);
+		for (int shard = 1; shard < count; shard++) {
+			for (Map.Entry<String, Long> blockSize : blockSizes.entrySet()) {
+				Long increment = increment(shard, blockSize.getKey());
+				if (increment == null || increment.longValue() != blockSize.getValue().longValue()) {
+					throw new IllegalStateException("Sequence " + blockSize.getKey() + " of shard " + shard + " has increment "
+							+ increment + ", but the block size is " + blockSize.getValue() + " (" + BlockSequenceGenerator.BLOCK_SIZE
+							+ blockSize.getKey() + ")");
+				}
+			}
+		}
+	}
+
+	//Read paths reading shard 0 only would miss the projects of the other shards
+	public static void checkConfiguration(int count, boolean replicaEnabled, boolean reactiveEnabled) {
+		if (count > 1 && replicaEnabled) {
+			throw new IllegalStateException("bf.shard.count=" + count + " requires bf.replica.enabled=false, the read replica belongs to shard 0 only");
+		}
+		if (count > 1 && reactiveEnabled) {
+			throw new IllegalStateException("bf.shard.count=" + count + " requires bf.reactive.enabled=false, the reactive read path reads shard 0 only");
+		}
+	}
+
+	public boolean enabled() {
+		return count > 1;
+	}
+
+	public int count() {
+		return count;
+	}
+
+	//Shard of a project (directory, cached), also for not existing projects
+	@Transactional(TxType.NOT_SUPPORTED)
+	public int shardOfProject(Long projectid) {
+		if (!enabled() || projectid == null) return 0;
+		Integer shard = projects.get(projectid);
+		if (shard == null) {
+			shard = query(projectid);
+			if (shard == null) return shardOfId(projectid);
+			projects.put(projectid, shard);
+		}
+		return shard;
+	}
+
+	//Items are created by the sequence of their project's shard
+	public int shardOfItem(Long itemid) {
+		return (!enabled() || itemid == null) ? 0 : shardOfId(itemid);
+	}
+
+	//Shard of a new project
+	public int place() {
+		return enabled() ? Math.floorMod(next.getAndIncrement(), count) : 0;
+	}
+
+	//Entry of a new project, written after the commit of the project's transaction
+	public void register(Long projectid, int shard) {
+		if (!enabled()) return;
+		afterCommit(() -> {
+			update("INSERT INTO project_shard (project_id, shard) VALUES (?, ?)", projectid, shard);
+			projects.put(projectid, shard);
+		});
+	}
+
+	//Entry of a deleted project, removed after the commit of the project's transaction
+	public void unregister(Long projectid) {
+		if (!enabled()) return;
+		afterCommit(() -> {
+			projects.remove(projectid);
+			update("DELETE FROM project_shard WHERE project_id = ?", projectid, null);
+		});
+	}
+
+	public Connection connection(int shard) throws SQLException {
+		return shards[shard].getConnection();
+	}
+
+	private int shardOfId(long id) {
+		return shardOfId(id, count);
+	}
+
+	//Shard of the sequence an id has been taken from
+	public static int shardOfId(long id, int count) {
+		return (int) Math.min(id / ID_RANGE, count - 1);
+	}
+
+	//Directory statements run on their own connection (autocommit) once the project's transaction has committed.
+	//A failed statement is logged only: without entry a project is found by its id range, a remaining entry points to a deleted project.
+	private void afterCommit(Runnable update) {
+		Runnable logged = () -> {
+			try {
+				update.run();
+			} catch (IllegalStateException e) {
+				LOG.warn("Shard directory not updated: " + e.getMessage());
+			}
+		};
+		if (transactionRegistry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+			logged.run();
+			return;
+		}
+		transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+			@Override
+			public void beforeCompletion() {
+			}
+
+			@Override
+			public void afterCompletion(int status) {
+				if (status == Status.STATUS_COMMITTED) logged.run();
+			}
+		});
+	}
+
+	private Integer query(Long projectid) {
+		try (Connection connection = directory.getConnection();
+				PreparedStatement statement = connection.prepareStatement("SELECT shard FROM project_shard WHERE project_id = ?")) {
+			statement.setLong(1, projectid);
+			try (ResultSet result = statement.executeQuery()) {
+				return result.next() ? result.getInt(1) : null;
+			}
+		} catch (SQLException e) {
+			throw new IllegalStateException("Shard directory not available", e);
+		}
+	}
+
+	//Increment of a sequence of a shard, null if the sequence does not exist
+	private Long increment(int shard, String sequence) {
+		try (Connection connection = connection(shard);
+				PreparedStatement statement = connection.prepareStatement(
+						"SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema() AND sequencename = ?")) {
+			statement.setString(1, sequence);
+			try (ResultSet result = statement.executeQuery()) {
+				return result.next() ? result.getLong(1) : null;
+			}
+		} catch (SQLException e) {
+			throw new IllegalStateException("Shard " + shard + " not available", e);
+		}
+	}
+
+	private void update(String sql, Long projectid, Integer shard) {
+		try (Connection connection = directory.getConnection();
+				PreparedStatement statement = connection.prepareStatement(sql)) {
+			statement.setLong(1, projectid);
+			if (shard != null) statement.setInt(2, shard);
+			statement.executeUpdate();
+		} catch (SQLException e) {
+			throw new IllegalStateException("Shard directory not available", e);
+		}
+	}
+
+	//Qualifier of a named datasource for programmatic lookup
+	@SuppressWarnings("all")
+	static class DataSourceLiteral extends AnnotationLiteral<DataSource> implements DataSource {
+
+		private final String name;
+
+		DataSourceLiteral(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String value() {
+			return name;
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package de.sn.quarkus.businessfunctions.shard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+/**
+ * Scatter-gather: a query runs on all shards in parallel, each in its own transaction (ShardTransaction),
+ * the results are concatenated in shard order. Without sharding the query runs in the calling context.
+ */
+@ApplicationScoped
+public class ShardExecutor {
+
+	@Inject
+	ShardDirectory directory;
+
+	@Inject
+	ShardTransaction transaction;
+
+	private ExecutorService executor;
+
+	@PostConstruct
+	void init() {
+		if (directory.enabled()) {
+			executor = Executors.newFixedThreadPool(directory.count());
+		}
+	}
+
+	@PreDestroy
+	void shutdown() {
+		if (executor != null) executor.shutdown();
+	}
+
+	public <T> List<T> gather(Supplier<List<T>> query) {
+		if (!directory.enabled()) {
+			return query.get();
+		}
+		List<CompletableFuture<List<T>>> parts = new ArrayList<>();
+		for (int shard = 0; shard < directory.count(); shard++) {
+			int current = shard;
+			parts.add(CompletableFuture.supplyAsync(() -> transaction.call(current, query), executor));
+		}
+		List<T> result = new ArrayList<>();
+		try {
+			for (CompletableFuture<List<T>> part : parts) {
+				result.addAll(part.join());
+			}
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw e;
+		}
+		return result;
+	}
+}
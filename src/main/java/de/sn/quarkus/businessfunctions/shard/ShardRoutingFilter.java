@@ -0,0 +1,85 @@
+package de.sn.quarkus.businessfunctions.shard;
+
+import java.io.IOException;
+
+import javax.inject.Inject;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.container.ResourceInfo;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.Provider;
+import javax.ws.rs.ext.WriterInterceptor;
+import javax.ws.rs.ext.WriterInterceptorContext;
+
+import de.sn.quarkus.businessfunctions.resources.ItemResource;
+import de.sn.quarkus.businessfunctions.resources.ProjectResource;
+
+/**
+ * Shard of a request from its path: project id (/projects/{id}, .../project/{projectid}/...) or item id (/items/{id}).
+ * Set before the resource method begins its transaction, requests without id stay on shard 0
+ * (lists and lookups gather from all shards, writes with the id in the body select the shard themselves).
+ * Reset after the response has been written (entities may still be read, e.g. streamed exports),
+ * responses without entity are not written and reset it after the resource method.
+ */
+@Provider
+public class ShardRoutingFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+	@Context
+	ResourceInfo resourceInfo;
+
+	@Inject
+	ShardDirectory directory;
+
+	@Override
+	public void filter(ContainerRequestContext request) {
+		ShardContext.set(directory.enabled() ? shard(request.getUriInfo().getPathParameters()) : 0);
+	}
+
+	@Override
+	public void filter(ContainerRequestContext request, ContainerResponseContext response) {
+		if (!response.hasEntity()) {
+			ShardContext.set(0);
+		}
+	}
+
+	@Override
+	public void aroundWriteTo(WriterInterceptorContext context) throws IOException, WebApplicationException {
+		try {
+			context.proceed();
+		} finally {
+			ShardContext.set(0);
+		}
+	}
+
+	private int shard(MultivaluedMap<String, String> parameters) {
+		Class<?> resource = resourceInfo.getResourceClass();
+		Long projectid = id(parameters.getFirst("projectid"));
+		if (projectid != null) {
+			return directory.shardOfProject(projectid);
+		}
+		Long id = id(parameters.getFirst("id"));
+		if (id == null || resource == null) {
+			return 0;
+		}
+		if (ProjectResource.class.isAssignableFrom(resource)) {
+			return directory.shardOfProject(id);
+		}
+		if (ItemResource.class.isAssignableFrom(resource)) {
+			return directory.shardOfItem(id);
+		}
+		return 0;
+	}
+
+	private static Long id(String value) {
+		if (value == null) return null;
+		try {
+			return Long.valueOf(value);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,35 @@
+package de.sn.quarkus.businessfunctions.shard;
+
+import java.util.function.Supplier;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import javax.transaction.Transactional.TxType;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+
+/**
+ * Work on one shard in its own transaction and session. The second level and query caches are bypassed:
+ * cached query results do not know the shard they have been read from.
+ */
+@ApplicationScoped
+public class ShardTransaction {
+
+	@Inject
+	EntityManager em;
+
+	@Transactional(TxType.REQUIRES_NEW)
+	public <T> T call(int shard, Supplier<T> work) {
+		int previous = ShardContext.current();
+		ShardContext.set(shard);
+		try {
+			em.unwrap(Session.class).setCacheMode(CacheMode.IGNORE);
+			return work.get();
+		} finally {
+			ShardContext.set(previous);
+		}
+	}
+}
@@ -0,0 +1,32 @@
+package de.sn.quarkus.businessfunctions.shard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import de.sn.quarkus.businessfunctions.resources.PageCursor;
+
+/**
+ * Page of a list sorted by id, merged from the parts of all shards. Each shard returns its first rows
+ * (id, record) in id order up to the end of the page, so the page is complete after sorting the rows by id.
+ */
+public final class ShardedPage {
+
+	public final List<Object> records = new ArrayList<>();
+	public final String nextCursor;
+
+	private ShardedPage(List<Object[]> rows, int first, int size, boolean keyset) {
+		for (int i = first; i < Math.min(first + size, rows.size()); i++) {
+			records.add(rows.get(i)[1]);
+		}
+		//Keyset pages start at the cursor (first = 0), a further row means a next page
+		nextCursor = (keyset && rows.size() > size) ? PageCursor.encode((Long) rows.get(size - 1)[0]) : null;
+	}
+
+	//Rows of all shards in any order, page from the first row (offset paging) or from the cursor (keyset paging)
+	public static ShardedPage merge(List<Object[]> rows, int first, int size, boolean keyset) {
+		List<Object[]> sorted = new ArrayList<>(rows);
+		sorted.sort(Comparator.comparingLong(row -> (Long) row[0]));
+		return new ShardedPage(sorted, keyset ? 0 : first, size, keyset);
+	}
+}
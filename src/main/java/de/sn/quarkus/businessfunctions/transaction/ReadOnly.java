@@ -0,0 +1,21 @@
+package de.sn.quarkus.businessfunctions.transaction;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import javax.interceptor.InterceptorBinding;
+
+/**
+ * Read path: entities are loaded read-only (no snapshot copies, no dirty checking) and the session is never flushed.
+ * Combined with @Transactional(TxType.SUPPORTS) no read-write transaction is opened.
+ * Connections are taken from the read replica (ReplicaRouting).
+ */
+@Inherited
+@InterceptorBinding
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface ReadOnly {
+}
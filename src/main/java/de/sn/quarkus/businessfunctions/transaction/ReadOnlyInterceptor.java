@@ -0,0 +1,43 @@
+package de.sn.quarkus.businessfunctions.transaction;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+import javax.persistence.EntityManager;
+
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+
+import de.sn.quarkus.businessfunctions.datasource.ReplicaRouting;
+
+@ReadOnly
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_BEFORE + 300) //Within an active transaction (@Transactional: + 200)
+public class ReadOnlyInterceptor {
+
+	@Inject
+	EntityManager em;
+
+	@Inject
+	ReplicaRouting replicaRouting;
+
+	//The session is scoped to the request or transaction, so the settings end with it.
+	//Connections opened within the call are taken from the read replica.
+	//Replica reads use the second level and query caches, but never put into them:
+	//a lagging replica would put the state before the last write back after its eviction.
+	@AroundInvoke
+	Object readOnly(InvocationContext context) throws Exception {
+		return replicaRouting.read(() -> {
+			Session session = em.unwrap(Session.class);
+			session.setDefaultReadOnly(true);
+			session.setHibernateFlushMode(FlushMode.MANUAL);
+			if (replicaRouting.replicaRead()) {
+				session.setCacheMode(CacheMode.GET);
+			}
+			return context.proceed();
+		});
+	}
+}
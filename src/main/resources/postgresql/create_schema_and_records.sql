@@ -1,10 +1,15 @@
 DROP TABLE public.item;
 DROP TABLE public.project;
+DROP TABLE IF EXISTS public.item_count;
+DROP TABLE IF EXISTS public.entity_count;
+DROP TABLE IF EXISTS public.item_change;
+DROP TABLE IF EXISTS public.project_shard;
 
 CREATE TABLE public.project
 (
     id bigint NOT NULL,
     name character varying(20) COLLATE pg_catalog."default" NOT NULL,
+    version bigint NOT NULL DEFAULT 0,
     CONSTRAINT project_pkey PRIMARY KEY (id)
 )
 
@@ -12,8 +17,11 @@ TABLESPACE pg_default;
 ALTER TABLE public.project
     OWNER to bf;
 
-INSERT INTO public.project VALUES (nextval('hibernate_sequence'), 'Test Projekt');
-INSERT INTO public.project VALUES (nextval('hibernate_sequence'), 'Test Projekt2');    
+INSERT INTO public.project VALUES (1, 'Test Projekt');
+INSERT INTO public.project VALUES (2, 'Test Projekt2');    
+
+-- project ids are allocated in blocks by Hibernate (pooled optimizer), next block starts after the preloaded ids
+SELECT setval('project_seq', 2);
     
 CREATE TABLE public.item
 (
@@ -23,6 +31,8 @@ CREATE TABLE public.item
     name character varying(20) COLLATE pg_catalog."default" NOT NULL,
     item_id bigint,
     project_id bigint,
+    path character varying(255) COLLATE pg_catalog."default",
+    version bigint NOT NULL DEFAULT 0,
     CONSTRAINT item_pkey PRIMARY KEY (id),
     CONSTRAINT fk62g7oly5161ig38aq3gwk19mx FOREIGN KEY (item_id)
         REFERENCES public.item (id) MATCH SIMPLE
@@ -37,9 +47,84 @@ CREATE TABLE public.item
 TABLESPACE pg_default;
 ALTER TABLE public.item
     OWNER to bf;
+
+CREATE INDEX item_project_level_id_idx
+    ON public.item USING btree (project_id, level, id);
+
+CREATE INDEX item_item_id_idx
+    ON public.item USING btree (item_id);
+
+CREATE INDEX item_path_idx
+    ON public.item USING btree (path varchar_pattern_ops);
     
 
-INSERT INTO public.item VALUES (nextval('hibernate_sequence'), '/main.jpg', 0, 'main', null,1);
-INSERT INTO public.item VALUES (nextval('hibernate_sequence'), '/sub.jpg', 1, 'sub1', 3,1);
-INSERT INTO public.item VALUES (nextval('hibernate_sequence'), '/sub.jpg', 1, 'sub2', 3,1);
-INSERT INTO public.item VALUES (nextval('hibernate_sequence'), '/sub.jpg', 2, 'sub1sub1', 4,1);
\ No newline at end of file
+INSERT INTO public.item VALUES (3, '/main.jpg', 0, 'main', null,1);
+INSERT INTO public.item VALUES (4, '/sub.jpg', 1, 'sub1', 3,1);
+INSERT INTO public.item VALUES (5, '/sub.jpg', 1, 'sub2', 3,1);
+INSERT INTO public.item VALUES (6, '/sub.jpg', 2, 'sub1sub1', 4,1);
+
+-- item ids are allocated in blocks by Hibernate (pooled optimizer), next block starts after the preloaded ids
+SELECT setval('item_seq', 6);
+
+WITH RECURSIVE paths (id, path) AS (
+    SELECT id, CAST('/' AS character varying(255)) FROM public.item WHERE item_id IS NULL
+    UNION ALL
+    SELECT i.id, CAST(p.path || p.id || '/' AS character varying(255)) FROM public.item i JOIN paths p ON i.item_id = p.id
+)
+UPDATE public.item SET path = paths.path FROM paths WHERE public.item.id = paths.id;
+
+-- counters of the paged lists, maintained by the write paths (X-Total-Count), striped (bf.count.stripes) and summed on read
+CREATE TABLE public.item_count
+(
+    project_id bigint NOT NULL,
+    level integer NOT NULL,
+    stripe integer NOT NULL DEFAULT 0,
+    count bigint NOT NULL DEFAULT 0,
+    CONSTRAINT item_count_pkey PRIMARY KEY (project_id, level, stripe)
+)
+
+TABLESPACE pg_default;
+ALTER TABLE public.item_count
+    OWNER to bf;
+
+CREATE TABLE public.entity_count
+(
+    name character varying(30) NOT NULL,
+    stripe integer NOT NULL DEFAULT 0,
+    count bigint NOT NULL DEFAULT 0,
+    CONSTRAINT entity_count_pkey PRIMARY KEY (name, stripe)
+)
+
+TABLESPACE pg_default;
+ALTER TABLE public.entity_count
+    OWNER to bf;
+
+-- project version: changes of items per project in stripes (bf.count.stripes), summed with project.version on read
+CREATE TABLE public.item_change
+(
+    project_id bigint NOT NULL,
+    stripe integer NOT NULL,
+    count bigint NOT NULL DEFAULT 0,
+    CONSTRAINT item_change_pkey PRIMARY KEY (project_id, stripe)
+)
+
+TABLESPACE pg_default;
+ALTER TABLE public.item_change
+    OWNER to bf;
+
+INSERT INTO public.item_count (project_id, level, count) SELECT project_id, level, count(*) FROM public.item GROUP BY project_id, level;
+INSERT INTO public.entity_count (name, count) VALUES ('project', (SELECT count(*) FROM public.project));
+
+-- shard directory (bf.shard.count > 1): shard of each project, projects without entry are located by their id range
+CREATE TABLE public.project_shard
+(
+    project_id bigint NOT NULL,
+    shard integer NOT NULL,
+    CONSTRAINT project_shard_pkey PRIMARY KEY (project_id)
+)
+
+TABLESPACE pg_default;
+ALTER TABLE public.project_shard
+    OWNER to bf;
+
+INSERT INTO public.project_shard SELECT id, 0 FROM public.project;
@@ -0,0 +1,101 @@
+-- Schema of shard n > 0 (psql -v shard=n -v project_block=50 -v item_block=50), shard 0 is created by Hibernate and create_schema_and_records.sql.
+-- The increments must be the block sizes of the application (bf.id.block-size.project_seq/item_seq), this is checked at startup.
+-- Ids of shard n start at n * 2^40 (ShardDirectory.ID_RANGE), so ids are unique over all shards.
+DROP TABLE IF EXISTS public.item;
+DROP TABLE IF EXISTS public.project;
+DROP TABLE IF EXISTS public.item_count;
+DROP TABLE IF EXISTS public.entity_count;
+DROP TABLE IF EXISTS public.item_change;
+DROP SEQUENCE IF EXISTS public.project_seq;
+DROP SEQUENCE IF EXISTS public.item_seq;
+
+CREATE SEQUENCE public.project_seq INCREMENT BY :project_block;
+CREATE SEQUENCE public.item_seq INCREMENT BY :item_block;
+SELECT setval('project_seq', :shard * 1099511627776);
+SELECT setval('item_seq', :shard * 1099511627776);
+
+CREATE TABLE public.project
+(
+    id bigint NOT NULL,
+    name character varying(20) COLLATE pg_catalog."default" NOT NULL,
+    version bigint NOT NULL DEFAULT 0,
+    CONSTRAINT project_pkey PRIMARY KEY (id)
+)
+
+TABLESPACE pg_default;
+ALTER TABLE public.project
+    OWNER to bf;
+
+CREATE TABLE public.item
+(
+    id bigint NOT NULL,
+    imageurl character varying(255) COLLATE pg_catalog."default",
+    level integer NOT NULL,
+    name character varying(20) COLLATE pg_catalog."default" NOT NULL,
+    item_id bigint,
+    project_id bigint,
+    path character varying(255) COLLATE pg_catalog."default",
+    version bigint NOT NULL DEFAULT 0,
+    CONSTRAINT item_pkey PRIMARY KEY (id),
+    CONSTRAINT item_item_fkey FOREIGN KEY (item_id)
+        REFERENCES public.item (id) MATCH SIMPLE
+        ON UPDATE NO ACTION
+        ON DELETE NO ACTION,
+    CONSTRAINT item_project_fkey FOREIGN KEY (project_id)
+        REFERENCES public.project (id) MATCH SIMPLE
+        ON UPDATE NO ACTION
+        ON DELETE NO ACTION
+)
+
+TABLESPACE pg_default;
+ALTER TABLE public.item
+    OWNER to bf;
+
+CREATE INDEX item_project_level_id_idx
+    ON public.item USING btree (project_id, level, id);
+
+CREATE INDEX item_item_id_idx
+    ON public.item USING btree (item_id);
+
+CREATE INDEX item_path_idx
+    ON public.item USING btree (path varchar_pattern_ops);
+
+CREATE TABLE public.item_count
+(
+    project_id bigint NOT NULL,
+    level integer NOT NULL,
+    stripe integer NOT NULL DEFAULT 0,
+    count bigint NOT NULL DEFAULT 0,
+    CONSTRAINT item_count_pkey PRIMARY KEY (project_id, level, stripe)
+)
+
+TABLESPACE pg_default;
+ALTER TABLE public.item_count
+    OWNER to bf;
+
+CREATE TABLE public.entity_count
+(
+    name character varying(30) NOT NULL,
+    stripe integer NOT NULL DEFAULT 0,
+    count bigint NOT NULL DEFAULT 0,
+    CONSTRAINT entity_count_pkey PRIMARY KEY (name, stripe)
+)
+
+TABLESPACE pg_default;
+ALTER TABLE public.entity_count
+    OWNER to bf;
+
+-- project version: changes of items per project in stripes (bf.count.stripes), summed with project.version on read
+CREATE TABLE public.item_change
+(
+    project_id bigint NOT NULL,
+    stripe integer NOT NULL,
+    count bigint NOT NULL DEFAULT 0,
+    CONSTRAINT item_change_pkey PRIMARY KEY (project_id, stripe)
+)
+
+TABLESPACE pg_default;
+ALTER TABLE public.item_change
+    OWNER to bf;
+
+INSERT INTO public.entity_count (name, count) VALUES ('project', 0);
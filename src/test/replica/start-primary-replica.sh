@@ -0,0 +1,26 @@
+#!/bin/sh
+# Starts two local PostgreSQL instances with streaming replication (docker, bitnami/postgresql):
+# primary on port 5432, read replica on port 5433, database/user/password "bf".
+# Run the application against both:
+#   ./mvnw quarkus:dev -Dquarkus.datasource.replica.jdbc.url=jdbc:postgresql://localhost:5433/bf
+# Replica failover can be tried with "docker stop bf-replica" (reads fall back to the primary) and "docker start bf-replica".
+#
+# Usage: ./start-primary-replica.sh [primary port] [replica port]
+
+PRIMARY_PORT=${1:-5432}
+REPLICA_PORT=${2:-5433}
+
+docker network create bf-replication 2>/dev/null
+
+docker run -d --name bf-primary --network bf-replication -p "$PRIMARY_PORT":5432 \
+	-e POSTGRESQL_REPLICATION_MODE=master \
+	-e POSTGRESQL_REPLICATION_USER=repl -e POSTGRESQL_REPLICATION_PASSWORD=repl \
+	-e POSTGRESQL_USERNAME=bf -e POSTGRESQL_PASSWORD=bf -e POSTGRESQL_DATABASE=bf \
+	bitnami/postgresql:12
+
+docker run -d --name bf-replica --network bf-replication -p "$REPLICA_PORT":5432 \
+	-e POSTGRESQL_REPLICATION_MODE=slave \
+	-e POSTGRESQL_REPLICATION_USER=repl -e POSTGRESQL_REPLICATION_PASSWORD=repl \
+	-e POSTGRESQL_MASTER_HOST=bf-primary -e POSTGRESQL_MASTER_PORT_NUMBER=5432 \
+	-e POSTGRESQL_PASSWORD=bf \
+	bitnami/postgresql:12
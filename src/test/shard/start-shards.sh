@@ -0,0 +1,29 @@
+#!/bin/sh
+# Starts additional local PostgreSQL instances as shards 1..n (docker, postgres:12), database/user/password "bf",
+# and creates their schema (src/main/resources/postgresql/create_shard_schema.sql). Shard 0 is the primary on port 5432.
+# Run the application against all shards (example for 2 additional shards on the ports 5434 and 5435):
+#   ./mvnw quarkus:dev -Dbf.shard.count=3 -Dbf.replica.enabled=false -Dbf.reactive.enabled=false \
+#     -Dquarkus.datasource.shard1.jdbc.url=jdbc:postgresql://localhost:5434/bf \
+#     -Dquarkus.datasource.shard2.jdbc.url=jdbc:postgresql://localhost:5435/bf
+# New projects are placed round robin, GET /projects gathers from all shards.
+# The sequences are incremented by the id block sizes of the application (bf.id.block-size.project_seq/item_seq),
+# set PROJECT_BLOCK_SIZE / ITEM_BLOCK_SIZE if they are configured differently (default 50).
+#
+# Usage: ./start-shards.sh [number of additional shards] [first port]
+
+SHARDS=${1:-2}
+FIRST_PORT=${2:-5434}
+SCHEMA="$(dirname "$0")/../../main/resources/postgresql/create_shard_schema.sql"
+PROJECT_BLOCK_SIZE=${PROJECT_BLOCK_SIZE:-50}
+ITEM_BLOCK_SIZE=${ITEM_BLOCK_SIZE:-50}
+
+for SHARD in $(seq 1 "$SHARDS"); do
+	PORT=$((FIRST_PORT + SHARD - 1))
+	docker run -d --name "bf-shard$SHARD" -p "$PORT":5432 \
+		-e POSTGRES_USER=bf -e POSTGRES_PASSWORD=bf -e POSTGRES_DB=bf \
+		postgres:12
+	until docker exec "bf-shard$SHARD" pg_isready -h localhost -U bf -d bf >/dev/null 2>&1; do sleep 1; done
+	docker exec -i "bf-shard$SHARD" psql -U bf -d bf -v ON_ERROR_STOP=1 -v shard="$SHARD" \
+		-v project_block="$PROJECT_BLOCK_SIZE" -v item_block="$ITEM_BLOCK_SIZE" < "$SCHEMA"
+	echo "Shard $SHARD: jdbc:postgresql://localhost:$PORT/bf"
+done